@@ -0,0 +1,206 @@
+package net.betzel.avro.schemagen.maven.plugin;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.avro.Schema;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.reflect.ReflectData;
+
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiles and defines the codec of {@link AvroCodecGenerator} at runtime, for classes that are only known once their schema is used.
+ * Every codec is defined by a class loader of its own, a child of the class loader of its root class, in a package of its own. Members
+ * that are not public are therefore accessed through the method handles of the codec. Codec classes are cached per root class and schema,
+ * a pair without a codec, because no Java compiler is available or the generation, compilation or initialization failed, is cached as
+ * well, with the compiler diagnostics or the exception as the reason, see {@link #getFailure(Class, Schema)}.
+ */
+final class AvroCodecCompiler {
+
+    private static final String CODEC_PACKAGE = AvroCodecCompiler.class.getPackage().getName() + ".codec";
+    // Stored with the root class, so the codec classes and their class loaders do not keep it from being unloaded
+    private static final ClassValue<ConcurrentMap<Schema, CodecClass>> CODEC_CLASSES = new ClassValue<ConcurrentMap<Schema, CodecClass>>() {
+        @Override
+        protected ConcurrentMap<Schema, CodecClass> computeValue(Class<?> type) {
+            return new ConcurrentHashMap();
+        }
+    };
+
+    private AvroCodecCompiler() {
+    }
+
+    /**
+     * Returns a new codec for the root class and schema, a {@link DatumWriter} and {@link DatumReader}, or null if there is none.
+     */
+    static Object newCodec(Class<?> rootClass, Schema schema, ReflectData reflectData) {
+        Class<?> codecClass = CODEC_CLASSES.get(rootClass).computeIfAbsent(schema, key -> compile(rootClass, key)).codecClass;
+        if (Objects.isNull(codecClass)) {
+            return null;
+        }
+        try {
+            return codecClass.getConstructor(ReflectData.class).newInstance(reflectData);
+        } catch (ReflectiveOperationException e) {
+            throw new SchemaGenerationException("Cannot create codec " + codecClass.getName() + " of class " + rootClass.getName(), e);
+        }
+    }
+
+    /**
+     * Returns why there is no codec for the root class and schema, with the exception as its cause, or null if there is a codec or no
+     * codec was requested yet.
+     */
+    static SchemaGenerationException getFailure(Class<?> rootClass, Schema schema) {
+        CodecClass codecClass = CODEC_CLASSES.get(rootClass).get(schema);
+        return Objects.isNull(codecClass) ? null : codecClass.failure;
+    }
+
+    private static CodecClass compile(Class<?> rootClass, Schema schema) {
+        JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
+        if (Objects.isNull(javaCompiler)) {
+            return new CodecClass(new SchemaGenerationException("No Java compiler available, codecs require a JDK"));
+        }
+        if (schema.getType() != Schema.Type.RECORD) {
+            return new CodecClass(new SchemaGenerationException("Schema " + schema.getFullName() + " is no record"));
+        }
+        String codecClassName = CODEC_PACKAGE + "." + rootClass.getName().replace('.', '_').replace('$', '_') + AvroCodecGenerator.CODEC_SUFFIX;
+        AvroCodecGenerator avroCodecGenerator = new AvroCodecGenerator(rootClass, schema, codecClassName);
+        try {
+            String source = avroCodecGenerator.generate();
+            Set<String> classPath = new LinkedHashSet(Arrays.asList(System.getProperty("java.class.path").split(File.pathSeparator)));
+            for (Class<?> clazz : avroCodecGenerator.getReferencedClasses()) {
+                addLocation(classPath, clazz);
+            }
+            for (Class<?> clazz : new Class<?>[]{rootClass, Schema.class, JsonNode.class, JsonParser.class}) {
+                addLocation(classPath, clazz);
+            }
+            MemoryFileManager memoryFileManager = new MemoryFileManager(javaCompiler.getStandardFileManager(null, null, StandardCharsets.UTF_8));
+            JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("string:///" + codecClassName.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension), JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return source;
+                }
+            };
+            // a codec that does not compile is left to ReflectData, the compiler errors are kept as the reason
+            StringWriter compilerOutput = new StringWriter();
+            StringBuilder errors = new StringBuilder();
+            boolean compiled = javaCompiler.getTask(compilerOutput, memoryFileManager, diagnostic -> {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                    errors.append(System.lineSeparator()).append("line ").append(diagnostic.getLineNumber()).append(": ").append(diagnostic.getMessage(Locale.ROOT));
+                }
+            }, Arrays.asList("-nowarn", "-classpath", String.join(File.pathSeparator, classPath)), null, Collections.singleton(sourceFile)).call();
+            if (!compiled) {
+                return new CodecClass(new SchemaGenerationException("Cannot compile codec " + codecClassName + errors + compilerOutput));
+            }
+            ClassLoader parent = Objects.isNull(rootClass.getClassLoader()) ? AvroCodecCompiler.class.getClassLoader() : rootClass.getClassLoader();
+            // initialized here, so a codec whose method handles cannot be created is left to ReflectData as well
+            Class<?> codecClass = Class.forName(codecClassName, true, new CodecClassLoader(parent, memoryFileManager.classBytes));
+            // the class loader of the root class must see the same Avro classes as this one
+            if (!DatumWriter.class.isAssignableFrom(codecClass) || !DatumReader.class.isAssignableFrom(codecClass)) {
+                return new CodecClass(new SchemaGenerationException("Codec " + codecClassName + " sees other Avro classes than class " + rootClass.getName()));
+            }
+            return new CodecClass(codecClass);
+        } catch (RuntimeException | ClassNotFoundException | LinkageError e) {
+            return new CodecClass(new SchemaGenerationException("Cannot create codec " + codecClassName + " of class " + rootClass.getName(), e));
+        }
+    }
+
+    private static void addLocation(Set<String> classPath, Class<?> clazz) {
+        CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+        URL location = Objects.isNull(codeSource) ? null : codeSource.getLocation();
+        if (Objects.nonNull(location) && "file".equals(location.getProtocol())) {
+            classPath.add(new File(location.getPath()).getPath());
+        }
+    }
+
+    // Keeps the class files written by the compiler in memory
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        private final Map<String, byte[]> classBytes = new ConcurrentHashMap();
+
+        private MemoryFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(JavaFileManager.Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("bytes:///" + className.replace('.', '/') + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    return new ByteArrayOutputStream() {
+                        @Override
+                        public void close() throws IOException {
+                            super.close();
+                            classBytes.put(className, toByteArray());
+                        }
+                    };
+                }
+            };
+        }
+
+    }
+
+    // The codec class of a root class and schema, or the reason there is none
+    private static final class CodecClass {
+
+        private final Class<?> codecClass;
+        private final SchemaGenerationException failure;
+
+        private CodecClass(Class<?> codecClass) {
+            this.codecClass = codecClass;
+            this.failure = null;
+        }
+
+        private CodecClass(SchemaGenerationException failure) {
+            this.codecClass = null;
+            this.failure = failure;
+        }
+
+    }
+
+    private static final class CodecClassLoader extends ClassLoader {
+
+        private final Map<String, byte[]> classBytes;
+
+        private CodecClassLoader(ClassLoader parent, Map<String, byte[]> classBytes) {
+            super(parent);
+            this.classBytes = classBytes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classBytes.get(name);
+            if (Objects.isNull(bytes)) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+
+    }
+
+}
@@ -0,0 +1,1178 @@
+package net.betzel.avro.schemagen.maven.plugin;
+
+import org.apache.avro.LogicalType;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.reflect.AvroEncode;
+import org.apache.avro.reflect.AvroName;
+import org.apache.avro.specific.SpecificData;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Generates the Java source of a codec for a root class and its schema. The codec is a {@link org.apache.avro.io.DatumWriter} and
+ * {@link org.apache.avro.io.DatumReader} that reads and writes the fields of the records directly and resolves polymorphic unions on the
+ * exact class of a value, as ReflectData does. Fields and constructors the codec cannot access directly are accessed through static final
+ * method handles with their exact types, so primitive values are not boxed. Values the codec cannot encode without reflection, like fixed
+ * types, generic classes, fields with a custom encoding or private members of JDK classes, are delegated to the datum writer and reader of
+ * ReflectData.
+ * The codec reads data written with the same schema only, schema resolution is left to ReflectData.
+ */
+public final class AvroCodecGenerator {
+
+    public static final String CODEC_SUFFIX = "AvroCodec";
+    // Parts of the embedded schema stay below the constant pool limit of 65535 bytes per string
+    private static final int SCHEMA_PART_LENGTH = 8192;
+
+    private enum Kind {
+        NULL, PRIMITIVE, STRING, STRINGABLE, BYTES_ARRAY, BYTES_BUFFER, ENUM, CONVERSION, UTIL_DATE, ARRAY, COLLECTION, MAP, RECORD, UNION, FALLBACK
+    }
+
+    private final Class<?> rootClass;
+    private final Schema rootSchema;
+    private final String codecClassName;
+    private final String packageName;
+    private final ClassLoader classLoader;
+    // Codec members, initialized in declaration order
+    private final List<String> staticMembers = new ArrayList();
+    private final List<String> members = new ArrayList();
+    private final List<String> memberInitializers = new ArrayList();
+    private final Map<String, String> memberNames = new HashMap();
+    // Record classes by schema full name, null when a record is written by ReflectData
+    private final Map<String, Class<?>> recordClasses = new HashMap();
+    private final Map<String, String> recordMethodNames = new HashMap();
+    private final Set<String> methodNames = new HashSet();
+    private final Deque<Schema> pendingRecords = new ArrayDeque();
+    private final Map<String, String> recordSchemaMembers = new HashMap();
+    private final Set<String> helpers = new HashSet();
+    private final Set<String> fallbacks = new LinkedHashSet();
+    private final Set<Class<?>> referencedClasses = new LinkedHashSet();
+    private final StringBuilder methods = new StringBuilder();
+    // Exactly typed accessors of the fields and constructors the codec cannot access directly
+    private final StringBuilder accessors = new StringBuilder();
+    private int indent;
+    private int variables;
+
+    public AvroCodecGenerator(Class<?> rootClass, Schema rootSchema) {
+        this(rootClass, rootSchema, getCodecClassName(rootClass));
+    }
+
+    /**
+     * @param codecClassName the binary name of the codec class, members of the root package are accessed directly only when the codec is
+     *                       in the same package and defined by the same class loader as the root class
+     */
+    public AvroCodecGenerator(Class<?> rootClass, Schema rootSchema, String codecClassName) {
+        this.rootClass = rootClass;
+        this.rootSchema = rootSchema;
+        this.codecClassName = codecClassName;
+        this.packageName = codecClassName.lastIndexOf('.') < 0 ? "" : codecClassName.substring(0, codecClassName.lastIndexOf('.'));
+        this.classLoader = Objects.isNull(rootClass.getClassLoader()) ? AvroCodecGenerator.class.getClassLoader() : rootClass.getClassLoader();
+    }
+
+    // The codec of com.acme.Outer$Inner is com.acme.Outer_InnerAvroCodec
+    public static String getCodecClassName(Class<?> rootClass) {
+        String packageName = getPackageName(rootClass);
+        String simpleName = rootClass.getName().substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_');
+        return (packageName.isEmpty() ? "" : packageName + ".") + simpleName + CODEC_SUFFIX;
+    }
+
+    public String getCodecClassName() {
+        return codecClassName;
+    }
+
+    /**
+     * Returns the schemas of the values encoded and decoded by ReflectData, after {@link #generate()}.
+     */
+    public Set<String> getFallbacks() {
+        return fallbacks;
+    }
+
+    /**
+     * Returns the classes the codec source may name, after {@link #generate()}. Their locations make up the class path to compile it with.
+     */
+    public Set<Class<?>> getReferencedClasses() {
+        return referencedClasses;
+    }
+
+    public String generate() {
+        if (!isAccessible(rootClass)) {
+            throw new SchemaGenerationException("Class " + rootClass.getName() + " is not accessible from package " + packageName);
+        }
+        String rootTypeName = getTypeName(rootClass);
+        String codecSimpleName = codecClassName.substring(codecClassName.lastIndexOf('.') + 1);
+        // the root methods are generated first, records found on the way are queued
+        indent = 2;
+        StringBuilder writeRoot = new StringBuilder();
+        StringBuilder readRoot = new StringBuilder();
+        generate(writeRoot, () -> writeValue(rootSchema, rootClass, "datum", "SCHEMA"));
+        generate(readRoot, () -> {
+            line(rootTypeName + " value;");
+            readValue(rootSchema, rootClass, "value", "SCHEMA", "reuse");
+            line("return value;");
+        });
+        Schema recordSchema;
+        while (Objects.nonNull(recordSchema = pendingRecords.poll())) {
+            generateRecordMethods(recordSchema);
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * Codec of ").append(rootClass.getName()).append(", generated from its AVRO schema. Do not edit.\n */\n");
+        source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        source.append("public final class ").append(codecSimpleName).append(" implements org.apache.avro.io.DatumWriter<").append(rootTypeName)
+                .append(">, org.apache.avro.io.DatumReader<").append(rootTypeName).append("> {\n\n");
+        source.append("    public static final org.apache.avro.Schema SCHEMA = new org.apache.avro.Schema.Parser().parse(").append(getSchemaLiterals()).append(");\n");
+        for (String staticMember : staticMembers) {
+            source.append("    ").append(staticMember).append("\n");
+        }
+        source.append("\n    private final org.apache.avro.reflect.ReflectData reflectData;\n");
+        for (String member : members) {
+            source.append("    ").append(member).append("\n");
+        }
+        source.append("\n    public ").append(codecSimpleName).append("() {\n        this(org.apache.avro.reflect.ReflectData.get());\n    }\n\n");
+        source.append("    // The reflect data provides the logical type conversions and encodes the values without generated code\n");
+        source.append("    public ").append(codecSimpleName).append("(org.apache.avro.reflect.ReflectData reflectData) {\n");
+        source.append("        this.reflectData = reflectData;\n");
+        for (String memberInitializer : memberInitializers) {
+            source.append("        ").append(memberInitializer).append("\n");
+        }
+        source.append("    }\n\n");
+        source.append("    @Override\n    public void setSchema(org.apache.avro.Schema schema) {\n");
+        source.append("        if (!SCHEMA.equals(schema)) {\n");
+        source.append("            throw new org.apache.avro.AvroRuntimeException(\"Schema \" + schema.getFullName() + \" differs from the schema of ").append(codecSimpleName).append("\");\n");
+        source.append("        }\n    }\n\n");
+        source.append("    @Override\n    public void write(").append(rootTypeName).append(" datum, org.apache.avro.io.Encoder out) throws java.io.IOException {\n");
+        source.append(writeRoot).append("    }\n\n");
+        source.append("    @Override\n    public ").append(rootTypeName).append(" read(").append(rootTypeName).append(" reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {\n");
+        source.append(readRoot).append("    }\n");
+        source.append(methods);
+        source.append(accessors);
+        appendHelpers(source);
+        source.append("\n}\n");
+        return source.toString();
+    }
+
+    private void generate(StringBuilder target, Runnable generator) {
+        int start = methods.length();
+        generator.run();
+        target.append(methods, start, methods.length());
+        methods.setLength(start);
+    }
+
+    private void generateRecordMethods(Schema schema) {
+        Class<?> clazz = recordClasses.get(schema.getFullName());
+        String typeName = getTypeName(clazz);
+        String schemaMember = recordSchemaMembers.get(schema.getFullName());
+        String methodName = recordMethodNames.get(schema.getFullName());
+        variables = 0;
+        methods.append("\n    // ").append(schema.getFullName()).append("\n");
+        methods.append("    private void write").append(methodName).append("(").append(typeName).append(" value, org.apache.avro.io.Encoder out) throws java.io.IOException {\n");
+        for (Schema.Field schemaField : schema.getFields()) {
+            Field field = getField(clazz, schemaField.name());
+            String fieldSchema = schemaMember + ".getField(\"" + schemaField.name() + "\").schema()";
+            String fieldValue = isAccessible(field) ? "value." + field.getName() : getGetterMethod(clazz, field) + "(value)";
+            writeValue(schemaField.schema(), field.getGenericType(), fieldValue, fieldSchema);
+        }
+        methods.append("    }\n\n");
+        // a reused record keeps its nested records and dates, they are read into
+        methods.append("    private ").append(typeName).append(" read").append(methodName).append("(org.apache.avro.io.Decoder in, ").append(typeName).append(" reuse) throws java.io.IOException {\n");
+        Constructor<?> constructor = getNoArgConstructor(clazz);
+        if (isAccessible(constructor)) {
+            line(typeName + " value = reuse != null ? reuse : new " + typeName + "();");
+        } else {
+            line(typeName + " value = reuse != null ? reuse : " + getConstructorMethod(clazz) + "();");
+        }
+        for (Schema.Field schemaField : schema.getFields()) {
+            Field field = getField(clazz, schemaField.name());
+            String fieldSchema = schemaMember + ".getField(\"" + schemaField.name() + "\").schema()";
+            String current = "reuse == null ? null : " + (isAccessible(field) ? "value." + field.getName() : getGetterMethod(clazz, field) + "(value)");
+            if (isAccessible(field) && !Modifier.isFinal(field.getModifiers())) {
+                readValue(schemaField.schema(), field.getGenericType(), "value." + field.getName(), fieldSchema, current);
+            } else {
+                String variable = newVariable();
+                line(getTypeName(field.getGenericType()) + " " + variable + ";");
+                readValue(schemaField.schema(), field.getGenericType(), variable, fieldSchema, current);
+                line(getSetterMethod(clazz, field) + "(value, " + variable + ");");
+            }
+        }
+        line("return value;");
+        methods.append("    }\n");
+    }
+
+    private void writeValue(Schema schema, Type type, String value, String schemaExpression) {
+        Class<?> rawClass = getRawClass(type);
+        switch (getKind(schema, type)) {
+            case NULL:
+                break;
+            case PRIMITIVE:
+                line("out.write" + getPrimitiveMethod(schema.getType()) + "(" + value + ");");
+                break;
+            case STRING:
+            case BYTES_ARRAY:
+            case BYTES_BUFFER:
+                line("out.write" + getPrimitiveMethod(schema.getType()) + "(" + value + ");");
+                break;
+            case STRINGABLE:
+                line("out.writeString(" + value + ".toString());");
+                break;
+            case ENUM:
+                line("out.writeEnum(" + value + ".ordinal());");
+                break;
+            case UTIL_DATE:
+                line("out.writeLong(" + value + ".getTime());");
+                break;
+            case CONVERSION: {
+                String conversion = getConversionMember(rawClass, schemaExpression);
+                String schemaMember = getSchemaMember(schemaExpression);
+                line("out.write" + getPrimitiveMethod(schema.getType()) + "(" + conversion + ".to" + getConversionMethod(schema.getType()) + "(" + value + ", " + schemaMember + ", " + schemaMember + ".getLogicalType()));");
+                break;
+            }
+            case ARRAY: {
+                String array = newVariable();
+                String index = newVariable();
+                line(getTypeName(type) + " " + array + " = " + value + ";");
+                line("out.writeArrayStart();");
+                line("out.setItemCount(" + array + ".length);");
+                open("for (int " + index + " = 0; " + index + " < " + array + ".length; " + index + "++) {");
+                line("out.startItem();");
+                writeValue(schema.getElementType(), rawClass.getComponentType(), array + "[" + index + "]", schemaExpression + ".getElementType()");
+                close("}");
+                line("out.writeArrayEnd();");
+                break;
+            }
+            case COLLECTION: {
+                Type elementType = getTypeArgument(type, 0);
+                String collection = newVariable();
+                String element = newVariable();
+                line(getTypeName(type) + " " + collection + " = " + value + ";");
+                line("out.writeArrayStart();");
+                line("out.setItemCount(" + collection + ".size());");
+                open("for (" + getTypeName(elementType) + " " + element + " : " + collection + ") {");
+                line("out.startItem();");
+                writeValue(schema.getElementType(), elementType, element, schemaExpression + ".getElementType()");
+                close("}");
+                line("out.writeArrayEnd();");
+                break;
+            }
+            case MAP: {
+                Type valueType = getTypeArgument(type, 1);
+                String map = newVariable();
+                String entry = newVariable();
+                line(getTypeName(type) + " " + map + " = " + value + ";");
+                line("out.writeMapStart();");
+                line("out.setItemCount(" + map + ".size());");
+                open("for (java.util.Map.Entry<java.lang.String, " + getTypeName(valueType) + "> " + entry + " : " + map + ".entrySet()) {");
+                line("out.startItem();");
+                line("out.writeString(" + entry + ".getKey());");
+                writeValue(schema.getValueType(), valueType, entry + ".getValue()", schemaExpression + ".getValueType()");
+                close("}");
+                line("out.writeMapEnd();");
+                break;
+            }
+            case RECORD: {
+                Class<?> recordClass = getRecordClass(schema);
+                String methodName = getRecordMethodName(schema, schemaExpression);
+                line("write" + methodName + "(" + (recordClass.equals(rawClass) ? value : "(" + getTypeName(recordClass) + ") " + value) + ", out);");
+                break;
+            }
+            case UNION:
+                writeUnion(schema, type, value, schemaExpression);
+                break;
+            default:
+                line(getFallbackMember(schema, schemaExpression, "Writer") + ".write(" + value + ", out);");
+                break;
+        }
+    }
+
+    // Unions of null and either one other type or records only, records are selected by the exact class of the value
+    private void writeUnion(Schema schema, Type type, String value, String schemaExpression) {
+        Class<?> rawClass = getRawClass(type);
+        List<Schema> branches = schema.getTypes();
+        String variable = newVariable();
+        line(getTypeName(type) + " " + variable + " = " + value + ";");
+        int nullIndex = -1;
+        int otherIndex = -1;
+        for (int i = 0; i < branches.size(); i++) {
+            if (branches.get(i).getType() == Schema.Type.NULL) {
+                nullIndex = i;
+            } else if (branches.get(i).getType() != Schema.Type.RECORD) {
+                otherIndex = i;
+            }
+        }
+        boolean nullCheck = nullIndex >= 0 && !rawClass.isPrimitive();
+        if (nullCheck) {
+            open("if (" + variable + " == null) {");
+            line("out.writeIndex(" + nullIndex + ");");
+            reopen("} else {");
+        }
+        if (otherIndex >= 0) {
+            line("out.writeIndex(" + otherIndex + ");");
+            writeValue(branches.get(otherIndex), type, variable, schemaExpression + ".getTypes().get(" + otherIndex + ")");
+        } else {
+            String clazz = newVariable();
+            line("java.lang.Class<?> " + clazz + " = " + variable + ".getClass();");
+            boolean first = true;
+            for (int i = 0; i < branches.size(); i++) {
+                Schema branch = branches.get(i);
+                if (branch.getType() != Schema.Type.RECORD) {
+                    continue;
+                }
+                Class<?> branchClass = resolveClass(branch);
+                String condition = "if (" + clazz + " == " + getTypeName(branchClass) + ".class) {";
+                if (first) {
+                    open(condition);
+                    first = false;
+                } else {
+                    reopen("} else " + condition);
+                }
+                line("out.writeIndex(" + i + ");");
+                writeValue(branch, branchClass, "(" + getTypeName(branchClass) + ") " + variable, schemaExpression + ".getTypes().get(" + i + ")");
+            }
+            if (first) {
+                line("throw new org.apache.avro.UnresolvedUnionException(" + getSchemaMember(schemaExpression) + ", " + variable + ");");
+            } else {
+                reopen("} else {");
+                line("throw new org.apache.avro.UnresolvedUnionException(" + getSchemaMember(schemaExpression) + ", " + variable + ");");
+                close("}");
+            }
+        }
+        if (nullCheck) {
+            close("}");
+        }
+    }
+
+    private void readValue(Schema schema, Type type, String target, String schemaExpression) {
+        readValue(schema, type, target, schemaExpression, null);
+    }
+
+    // Current is the expression of the value to read into, null when a new value is read
+    private void readValue(Schema schema, Type type, String target, String schemaExpression, String current) {
+        Class<?> rawClass = getRawClass(type);
+        switch (getKind(schema, type)) {
+            case NULL:
+                line(target + " = null;");
+                break;
+            case PRIMITIVE:
+                line(target + " = " + getPrimitiveRead(schema.getType(), rawClass) + ";");
+                break;
+            case STRING:
+                line(target + " = in.readString();");
+                break;
+            case STRINGABLE:
+                line(target + " = new " + getTypeName(rawClass) + "(in.readString());");
+                break;
+            case BYTES_ARRAY:
+                helpers.add("readByteArray");
+                line(target + " = readByteArray(in);");
+                break;
+            case BYTES_BUFFER:
+                line(target + " = in.readBytes(null);");
+                break;
+            case ENUM:
+                line(target + " = " + getEnumValuesMember(rawClass) + "[in.readEnum()];");
+                break;
+            case CONVERSION: {
+                String conversion = getConversionMember(rawClass, schemaExpression);
+                String schemaMember = getSchemaMember(schemaExpression);
+                line(target + " = " + conversion + ".from" + getConversionMethod(schema.getType()) + "(" + getConversionRead(schema.getType()) + ", " + schemaMember + ", " + schemaMember + ".getLogicalType());");
+                break;
+            }
+            case UTIL_DATE:
+                if (Objects.isNull(current)) {
+                    line(target + " = new java.util.Date(in.readLong());");
+                } else {
+                    helpers.add("reuse");
+                    helpers.add("readUtilDate");
+                    line(target + " = readUtilDate(in, reuse(" + current + ", java.util.Date.class));");
+                }
+                break;
+            case ARRAY: {
+                Class<?> componentClass = rawClass.getComponentType();
+                String count = newVariable();
+                String array = newVariable();
+                String size = newVariable();
+                String index = newVariable();
+                line("long " + count + " = in.readArrayStart();");
+                line(getTypeName(rawClass) + " " + array + " = " + getArrayCreation(componentClass, "(int) " + count) + ";");
+                line("int " + size + " = 0;");
+                open("while (" + count + " > 0) {");
+                open("if (" + size + " + " + count + " > " + array + ".length) {");
+                line(array + " = java.util.Arrays.copyOf(" + array + ", (int) (" + size + " + " + count + "));");
+                close("}");
+                open("for (long " + index + " = 0; " + index + " < " + count + "; " + index + "++) {");
+                readValue(schema.getElementType(), componentClass, array + "[" + size + "++]", schemaExpression + ".getElementType()");
+                close("}");
+                line(count + " = in.arrayNext();");
+                close("}");
+                line(target + " = " + array + ";");
+                break;
+            }
+            case COLLECTION: {
+                Type elementType = getTypeArgument(type, 0);
+                Class<?> implementation = getCollectionImplementation(rawClass);
+                String count = newVariable();
+                String collection = newVariable();
+                String index = newVariable();
+                String element = newVariable();
+                line("long " + count + " = in.readArrayStart();");
+                line(getTypeName(type) + " " + collection + " = new " + getTypeName(implementation) + "<>(" + (implementation.equals(ArrayList.class) ? "(int) " + count : "") + ");");
+                open("while (" + count + " > 0) {");
+                open("for (long " + index + " = 0; " + index + " < " + count + "; " + index + "++) {");
+                line(getTypeName(elementType) + " " + element + ";");
+                readValue(schema.getElementType(), elementType, element, schemaExpression + ".getElementType()");
+                line(collection + ".add(" + element + ");");
+                close("}");
+                line(count + " = in.arrayNext();");
+                close("}");
+                line(target + " = " + collection + ";");
+                break;
+            }
+            case MAP: {
+                Type valueType = getTypeArgument(type, 1);
+                String count = newVariable();
+                String map = newVariable();
+                String index = newVariable();
+                String key = newVariable();
+                String mapValue = newVariable();
+                line("long " + count + " = in.readMapStart();");
+                line(getTypeName(type) + " " + map + " = new " + getTypeName(getMapImplementation(rawClass)) + "<>();");
+                open("while (" + count + " > 0) {");
+                open("for (long " + index + " = 0; " + index + " < " + count + "; " + index + "++) {");
+                line("java.lang.String " + key + " = in.readString();");
+                line(getTypeName(valueType) + " " + mapValue + ";");
+                readValue(schema.getValueType(), valueType, mapValue, schemaExpression + ".getValueType()");
+                line(map + ".put(" + key + ", " + mapValue + ");");
+                close("}");
+                line(count + " = in.mapNext();");
+                close("}");
+                line(target + " = " + map + ";");
+                break;
+            }
+            case RECORD: {
+                String reuse = "null";
+                if (Objects.nonNull(current)) {
+                    helpers.add("reuse");
+                    reuse = "reuse(" + current + ", " + getTypeName(getRecordClass(schema)) + ".class)";
+                }
+                line(target + " = read" + getRecordMethodName(schema, schemaExpression) + "(in, " + reuse + ");");
+                break;
+            }
+            case UNION:
+                readUnion(schema, type, target, schemaExpression, current);
+                break;
+            default:
+                line(target + " = (" + getBoxedTypeName(type) + ") " + getFallbackMember(schema, schemaExpression, "Reader") + ".read(null, in);");
+                break;
+        }
+    }
+
+    private void readUnion(Schema schema, Type type, String target, String schemaExpression, String current) {
+        Class<?> rawClass = getRawClass(type);
+        List<Schema> branches = schema.getTypes();
+        open("switch (in.readIndex()) {");
+        for (int i = 0; i < branches.size(); i++) {
+            Schema branch = branches.get(i);
+            // a block per branch, javac 8 emits broken stack map frames for locals declared directly in a case
+            open("case " + i + ": {");
+            if (branch.getType() == Schema.Type.NULL && rawClass.isPrimitive()) {
+                line("throw new org.apache.avro.AvroRuntimeException(\"Null value of primitive type " + rawClass.getName() + "\");");
+                close("}");
+                continue;
+            }
+            readValue(branch, branch.getType() == Schema.Type.RECORD ? resolveClass(branch) : type, target, schemaExpression + ".getTypes().get(" + i + ")", current);
+            line("break;");
+            close("}");
+        }
+        line("default:");
+        indent++;
+        line("throw new org.apache.avro.AvroRuntimeException(\"Unknown union branch of " + schema.getTypes().size() + " branches\");");
+        indent--;
+        close("}");
+    }
+
+    private Kind getKind(Schema schema, Type type) {
+        Class<?> rawClass = getRawClass(type);
+        if (Objects.isNull(rawClass) || !isAccessible(type)) {
+            return Kind.FALLBACK;
+        }
+        String logicalTypeName = schema.getProp(LogicalType.LOGICAL_TYPE_PROP);
+        if (AvroLogicalTypes.UTIL_DATE_TIMESTAMP_MILLIS.equals(logicalTypeName) && schema.getType() == Schema.Type.LONG && rawClass == Date.class) {
+            // the millis are written and read without the boxing of the conversion
+            return Kind.UTIL_DATE;
+        }
+        if (Objects.nonNull(logicalTypeName) && !ReflectDataNullableFields.PRIMITIVE.equals(logicalTypeName) && !isRawType(schema.getType(), rawClass)) {
+            // values of a class with a logical type conversion
+            switch (schema.getType()) {
+                case INT:
+                case LONG:
+                case STRING:
+                case BYTES:
+                    return rawClass.isPrimitive() ? Kind.FALLBACK : Kind.CONVERSION;
+                default:
+                    return Kind.FALLBACK;
+            }
+        }
+        switch (schema.getType()) {
+            case NULL:
+                return Kind.NULL;
+            case BOOLEAN:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return isRawType(schema.getType(), rawClass) ? Kind.PRIMITIVE : Kind.FALLBACK;
+            case STRING:
+                if (rawClass.equals(String.class)) {
+                    return Kind.STRING;
+                }
+                return rawClass.getName().equals(schema.getProp(SpecificData.CLASS_PROP)) && hasStringConstructor(rawClass) ? Kind.STRINGABLE : Kind.FALLBACK;
+            case BYTES:
+                if (rawClass.equals(byte[].class)) {
+                    return Kind.BYTES_ARRAY;
+                }
+                return rawClass.equals(ByteBuffer.class) ? Kind.BYTES_BUFFER : Kind.FALLBACK;
+            case ENUM:
+                return rawClass.isEnum() && getEnumSymbols(rawClass).equals(schema.getEnumSymbols()) ? Kind.ENUM : Kind.FALLBACK;
+            case ARRAY:
+                if (rawClass.isArray()) {
+                    return type instanceof Class ? Kind.ARRAY : Kind.FALLBACK;
+                }
+                if (Collection.class.isAssignableFrom(rawClass) && Objects.nonNull(getCollectionImplementation(rawClass)) && isElementType(getTypeArgument(type, 0))) {
+                    return Kind.COLLECTION;
+                }
+                return Kind.FALLBACK;
+            case MAP:
+                if (Map.class.isAssignableFrom(rawClass) && Objects.nonNull(getMapImplementation(rawClass)) && String.class.equals(getTypeArgument(type, 0)) && isElementType(getTypeArgument(type, 1))) {
+                    return Kind.MAP;
+                }
+                return Kind.FALLBACK;
+            case RECORD:
+                Class<?> recordClass = getRecordClass(schema);
+                return Objects.nonNull(recordClass) && rawClass.isAssignableFrom(recordClass) ? Kind.RECORD : Kind.FALLBACK;
+            case UNION:
+                return isSupportedUnion(schema, rawClass) ? Kind.UNION : Kind.FALLBACK;
+            default:
+                return Kind.FALLBACK;
+        }
+    }
+
+    private boolean isSupportedUnion(Schema schema, Class<?> rawClass) {
+        int records = 0;
+        int others = 0;
+        for (Schema branch : schema.getTypes()) {
+            switch (branch.getType()) {
+                case NULL:
+                    break;
+                case RECORD:
+                    Class<?> branchClass = resolveClass(branch);
+                    if (Objects.isNull(branchClass) || !isAccessible(branchClass) || !rawClass.isAssignableFrom(branchClass)) {
+                        return false;
+                    }
+                    records++;
+                    break;
+                default:
+                    others++;
+                    break;
+            }
+        }
+        return records == 0 ? others <= 1 : others == 0;
+    }
+
+    private static boolean isRawType(Schema.Type schemaType, Class<?> rawClass) {
+        switch (schemaType) {
+            case BOOLEAN:
+                return rawClass.equals(boolean.class) || rawClass.equals(Boolean.class);
+            case INT:
+                return rawClass.equals(int.class) || rawClass.equals(Integer.class) || rawClass.equals(short.class) || rawClass.equals(Short.class)
+                        || rawClass.equals(byte.class) || rawClass.equals(Byte.class) || rawClass.equals(char.class) || rawClass.equals(Character.class);
+            case LONG:
+                return rawClass.equals(long.class) || rawClass.equals(Long.class);
+            case FLOAT:
+                return rawClass.equals(float.class) || rawClass.equals(Float.class);
+            case DOUBLE:
+                return rawClass.equals(double.class) || rawClass.equals(Double.class);
+            case STRING:
+                return rawClass.equals(String.class);
+            case BYTES:
+                return rawClass.equals(byte[].class) || rawClass.equals(ByteBuffer.class);
+            default:
+                return false;
+        }
+    }
+
+    private static String getPrimitiveMethod(Schema.Type schemaType) {
+        switch (schemaType) {
+            case BOOLEAN:
+                return "Boolean";
+            case INT:
+                return "Int";
+            case LONG:
+                return "Long";
+            case FLOAT:
+                return "Float";
+            case DOUBLE:
+                return "Double";
+            case STRING:
+                return "String";
+            case BYTES:
+                return "Bytes";
+            default:
+                throw new SchemaGenerationException("No primitive method for schema type " + schemaType);
+        }
+    }
+
+    private static String getPrimitiveRead(Schema.Type schemaType, Class<?> rawClass) {
+        if (schemaType == Schema.Type.INT) {
+            if (rawClass.equals(short.class) || rawClass.equals(Short.class)) {
+                return "(short) in.readInt()";
+            } else if (rawClass.equals(byte.class) || rawClass.equals(Byte.class)) {
+                return "(byte) in.readInt()";
+            } else if (rawClass.equals(char.class) || rawClass.equals(Character.class)) {
+                return "(char) in.readInt()";
+            }
+        }
+        return "in.read" + getPrimitiveMethod(schemaType) + "()";
+    }
+
+    private static String getConversionMethod(Schema.Type schemaType) {
+        switch (schemaType) {
+            case INT:
+                return "Int";
+            case LONG:
+                return "Long";
+            case STRING:
+                return "CharSequence";
+            default:
+                return "Bytes";
+        }
+    }
+
+    private static String getConversionRead(Schema.Type schemaType) {
+        switch (schemaType) {
+            case INT:
+                return "in.readInt()";
+            case LONG:
+                return "in.readLong()";
+            case STRING:
+                return "in.readString(null)";
+            default:
+                return "in.readBytes(null)";
+        }
+    }
+
+    private String getRecordMethodName(Schema schema, String schemaExpression) {
+        String methodName = recordMethodNames.get(schema.getFullName());
+        if (Objects.isNull(methodName)) {
+            methodName = schema.getName();
+            for (int i = 2; !methodNames.add(methodName); i++) {
+                methodName = schema.getName() + i;
+            }
+            recordMethodNames.put(schema.getFullName(), methodName);
+            recordSchemaMembers.put(schema.getFullName(), getSchemaMember(schemaExpression));
+            pendingRecords.add(schema);
+        }
+        return methodName;
+    }
+
+    // Returns the class of a record when its fields can be accessed by the codec, otherwise null and the record is left to ReflectData
+    private Class<?> getRecordClass(Schema schema) {
+        String fullName = schema.getFullName();
+        if (recordClasses.containsKey(fullName)) {
+            return recordClasses.get(fullName);
+        }
+        Class<?> clazz = resolveClass(schema);
+        if (Objects.nonNull(clazz) && (!isAccessible(clazz) || clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers()) || clazz.getTypeParameters().length > 0
+                || IndexedRecord.class.isAssignableFrom(clazz) || Objects.isNull(getNoArgConstructor(clazz)))) {
+            clazz = null;
+        }
+        // members of JDK classes are not opened to other modules on newer JDKs, these are only accessed when public
+        if (Objects.nonNull(clazz) && Objects.isNull(clazz.getClassLoader()) && !isAccessible(getNoArgConstructor(clazz))) {
+            clazz = null;
+        }
+        for (int i = 0; Objects.nonNull(clazz) && i < schema.getFields().size(); i++) {
+            Field field = getField(clazz, schema.getFields().get(i).name());
+            if (Objects.isNull(field) || !isAccessible(field.getGenericType()) || (Objects.isNull(field.getDeclaringClass().getClassLoader()) && !isAccessible(field))) {
+                clazz = null;
+            }
+        }
+        recordClasses.put(fullName, clazz);
+        return clazz;
+    }
+
+    // Resolve the class of a named schema, nested classes have the name of their enclosing class as namespace
+    private Class<?> resolveClass(Schema schema) {
+        String className = SpecificData.getClassName(schema);
+        while (true) {
+            try {
+                return Class.forName(className, false, classLoader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                int index = className.lastIndexOf('.');
+                if (index < 0) {
+                    return null;
+                }
+                className = className.substring(0, index) + "$" + className.substring(index + 1);
+            }
+        }
+    }
+
+    // The field of a schema field as found by ReflectData, null when it has a custom encoding
+    private static Field getField(Class<?> clazz, String name) {
+        for (Class<?> c = clazz; Objects.nonNull(c); c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                    continue;
+                }
+                AvroName avroName = field.getAnnotation(AvroName.class);
+                if (name.equals(Objects.isNull(avroName) ? field.getName() : avroName.value())) {
+                    return field.isAnnotationPresent(AvroEncode.class) ? null : field;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Constructor<?> getNoArgConstructor(Class<?> clazz) {
+        try {
+            return clazz.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static boolean hasStringConstructor(Class<?> clazz) {
+        try {
+            return Modifier.isPublic(clazz.getConstructor(String.class).getModifiers()) && !Modifier.isAbstract(clazz.getModifiers());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static List<String> getEnumSymbols(Class<?> enumClass) {
+        List<String> symbols = new ArrayList();
+        for (Object constant : enumClass.getEnumConstants()) {
+            symbols.add(((Enum) constant).name());
+        }
+        return symbols;
+    }
+
+    private static Class<?> getCollectionImplementation(Class<?> rawClass) {
+        if (!rawClass.isInterface() && !Modifier.isAbstract(rawClass.getModifiers())) {
+            return hasPublicNoArgConstructor(rawClass) ? rawClass : null;
+        }
+        if (rawClass.isAssignableFrom(ArrayList.class)) {
+            return ArrayList.class;
+        } else if (rawClass.isAssignableFrom(HashSet.class)) {
+            return HashSet.class;
+        } else if (rawClass.equals(SortedSet.class) || rawClass.equals(NavigableSet.class)) {
+            return TreeSet.class;
+        }
+        return null;
+    }
+
+    private static Class<?> getMapImplementation(Class<?> rawClass) {
+        if (!rawClass.isInterface() && !Modifier.isAbstract(rawClass.getModifiers())) {
+            return hasPublicNoArgConstructor(rawClass) ? rawClass : null;
+        }
+        if (rawClass.isAssignableFrom(HashMap.class)) {
+            return HashMap.class;
+        } else if (rawClass.equals(SortedMap.class) || rawClass.equals(NavigableMap.class)) {
+            return TreeMap.class;
+        }
+        return null;
+    }
+
+    private static boolean hasPublicNoArgConstructor(Class<?> clazz) {
+        try {
+            return Modifier.isPublic(clazz.getModifiers()) && Modifier.isPublic(clazz.getConstructor().getModifiers());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    // Element types are declared by locals and added to collections, wildcards and type variables are left to ReflectData
+    private static boolean isElementType(Type type) {
+        return type instanceof Class || type instanceof ParameterizedType;
+    }
+
+    private static Class<?> getRawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        return null;
+    }
+
+    // The class of a field type as seen by a method handle
+    private static Class<?> getErasure(Type type) {
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(getErasure(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        return getRawClass(type);
+    }
+
+    private static Type getTypeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            Type[] typeArguments = ((ParameterizedType) type).getActualTypeArguments();
+            return index < typeArguments.length ? typeArguments[index] : null;
+        }
+        return null;
+    }
+
+    private static String getPackageName(Class<?> clazz) {
+        String className = clazz.getName();
+        return className.lastIndexOf('.') < 0 ? "" : className.substring(0, className.lastIndexOf('.'));
+    }
+
+    // Whether the codec can name a type in its source
+    private boolean isAccessible(Type type) {
+        if (type instanceof Class) {
+            Class<?> clazz = (Class<?>) type;
+            while (clazz.isArray()) {
+                clazz = clazz.getComponentType();
+            }
+            if (clazz.isPrimitive()) {
+                return true;
+            }
+            if (Objects.isNull(clazz.getCanonicalName())) {
+                return false;
+            }
+            for (Class<?> c = clazz; Objects.nonNull(c); c = c.getEnclosingClass()) {
+                if (!isAccessible(c.getModifiers(), c)) {
+                    return false;
+                }
+            }
+            referencedClasses.add(clazz);
+            return true;
+        } else if (type instanceof ParameterizedType) {
+            if (!isAccessible(((ParameterizedType) type).getRawType())) {
+                return false;
+            }
+            for (Type typeArgument : ((ParameterizedType) type).getActualTypeArguments()) {
+                if (!isAccessible(typeArgument)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                if (!isAccessible(bound)) {
+                    return false;
+                }
+            }
+            for (Type bound : ((WildcardType) type).getLowerBounds()) {
+                if (!isAccessible(bound)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (type instanceof GenericArrayType) {
+            return isAccessible(((GenericArrayType) type).getGenericComponentType());
+        }
+        return false;
+    }
+
+    private boolean isAccessible(Field field) {
+        return isAccessible(field.getModifiers(), field.getDeclaringClass()) && isAccessible(field.getDeclaringClass());
+    }
+
+    private boolean isAccessible(Constructor<?> constructor) {
+        return isAccessible(constructor.getModifiers(), constructor.getDeclaringClass());
+    }
+
+    // Public members or members of the codec package that are not private, the codec is no subclass
+    private boolean isAccessible(int modifiers, Class<?> declaringClass) {
+        if (Modifier.isPublic(modifiers)) {
+            return true;
+        }
+        return !Modifier.isPrivate(modifiers) && getPackageName(declaringClass).equals(packageName) && Objects.equals(declaringClass.getClassLoader(), classLoader);
+    }
+
+    private static String getTypeName(Type type) {
+        if (type instanceof Class) {
+            return ((Class<?>) type).getCanonicalName();
+        } else if (type instanceof ParameterizedType) {
+            StringBuilder typeName = new StringBuilder(getTypeName(((ParameterizedType) type).getRawType())).append("<");
+            Type[] typeArguments = ((ParameterizedType) type).getActualTypeArguments();
+            for (int i = 0; i < typeArguments.length; i++) {
+                typeName.append(i == 0 ? "" : ", ").append(getTypeName(typeArguments[i]));
+            }
+            return typeName.append(">").toString();
+        } else if (type instanceof WildcardType) {
+            WildcardType wildcardType = (WildcardType) type;
+            if (wildcardType.getLowerBounds().length > 0) {
+                return "? super " + getTypeName(wildcardType.getLowerBounds()[0]);
+            }
+            Type upperBound = wildcardType.getUpperBounds()[0];
+            return Object.class.equals(upperBound) ? "?" : "? extends " + getTypeName(upperBound);
+        } else if (type instanceof GenericArrayType) {
+            return getTypeName(((GenericArrayType) type).getGenericComponentType()) + "[]";
+        }
+        throw new SchemaGenerationException("Unsupported type " + type.getTypeName());
+    }
+
+    private static String getBoxedTypeName(Type type) {
+        if (type instanceof Class && ((Class<?>) type).isPrimitive()) {
+            Class<?> primitiveClass = (Class<?>) type;
+            if (primitiveClass.equals(int.class)) {
+                return "java.lang.Integer";
+            } else if (primitiveClass.equals(char.class)) {
+                return "java.lang.Character";
+            }
+            String name = primitiveClass.getName();
+            return "java.lang." + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        }
+        return getTypeName(type);
+    }
+
+    // new short[n][] for a component type short[]
+    private static String getArrayCreation(Class<?> componentClass, String length) {
+        int dimensions = 0;
+        Class<?> elementClass = componentClass;
+        while (elementClass.isArray()) {
+            elementClass = elementClass.getComponentType();
+            dimensions++;
+        }
+        StringBuilder arrayCreation = new StringBuilder("new ").append(elementClass.getCanonicalName()).append("[").append(length).append("]");
+        for (int i = 0; i < dimensions; i++) {
+            arrayCreation.append("[]");
+        }
+        return arrayCreation.toString();
+    }
+
+    private String getSchemaMember(String schemaExpression) {
+        if ("SCHEMA".equals(schemaExpression)) {
+            return schemaExpression;
+        }
+        return getMember("schema", "private final org.apache.avro.Schema ", schemaExpression, schemaExpression);
+    }
+
+    private String getConversionMember(Class<?> rawClass, String schemaExpression) {
+        helpers.add("conversion");
+        String typeName = getTypeName(rawClass);
+        String schemaMember = getSchemaMember(schemaExpression);
+        return getMember("conversion", "private final org.apache.avro.Conversion<" + typeName + "> ", typeName + "|" + schemaMember,
+                "conversion(reflectData, " + typeName + ".class, " + schemaMember + ")");
+    }
+
+    private String getFallbackMember(Schema schema, String schemaExpression, String role) {
+        fallbacks.add(schema.getType() == Schema.Type.UNION ? "union of " + AvroSchemaGenerator.unionTypesToString(schema) : schema.getFullName());
+        String schemaMember = getSchemaMember(schemaExpression);
+        return getMember("datum" + role, "private final org.apache.avro.io.Datum" + role + " ", role + "|" + schemaMember,
+                "reflectData.createDatum" + role + "(" + schemaMember + ")");
+    }
+
+    private String getMember(String prefix, String declaration, String key, String initializer) {
+        String memberName = memberNames.get(prefix + "|" + key);
+        if (Objects.isNull(memberName)) {
+            memberName = prefix + memberNames.size();
+            memberNames.put(prefix + "|" + key, memberName);
+            members.add(declaration + memberName + ";");
+            memberInitializers.add(memberName + " = " + initializer + ";");
+        }
+        return memberName;
+    }
+
+    private String getStaticMember(String prefix, String declaration, String key, String initializer) {
+        String memberName = memberNames.get(prefix + "|" + key);
+        if (Objects.isNull(memberName)) {
+            memberName = prefix + memberNames.size();
+            memberNames.put(prefix + "|" + key, memberName);
+            staticMembers.add("private static final " + declaration + " " + memberName + " = " + initializer + ";");
+        }
+        return memberName;
+    }
+
+    private String getEnumValuesMember(Class<?> enumClass) {
+        String typeName = getTypeName(enumClass);
+        return getStaticMember("VALUES", typeName + "[]", typeName, typeName + ".values()");
+    }
+
+    // A static accessor method invoking the getter handle of the field with its exact type, returns the method name
+    private String getGetterMethod(Class<?> clazz, Field field) {
+        String typeName = getTypeName(clazz);
+        String key = typeName + "." + field.getName();
+        if (memberNames.containsKey("GETTER|" + key)) {
+            return "get" + memberNames.get("GETTER|" + key).substring("GETTER".length());
+        }
+        helpers.add("handles");
+        String erasureName = getTypeName(getErasure(field.getGenericType()));
+        String memberName = getStaticMember("GETTER", "java.lang.invoke.MethodHandle", key, "getter(" + typeName + ".class, \"" + field.getName() + "\", " + erasureName + ".class)");
+        String methodName = "get" + memberName.substring("GETTER".length());
+        accessors.append("\n    private static ").append(getTypeName(field.getGenericType())).append(" ").append(methodName).append("(").append(typeName).append(" value) {\n");
+        accessors.append("        try {\n            return (").append(erasureName).append(") ").append(memberName).append(".invokeExact(value);\n");
+        accessors.append("        } catch (java.lang.Throwable e) {\n            throw rethrow(e);\n        }\n    }\n");
+        return methodName;
+    }
+
+    // A static accessor method invoking the setter handle of the field with its exact type, returns the method name
+    private String getSetterMethod(Class<?> clazz, Field field) {
+        String typeName = getTypeName(clazz);
+        String key = typeName + "." + field.getName();
+        if (memberNames.containsKey("SETTER|" + key)) {
+            return "set" + memberNames.get("SETTER|" + key).substring("SETTER".length());
+        }
+        helpers.add("handles");
+        String erasureName = getTypeName(getErasure(field.getGenericType()));
+        String memberName = getStaticMember("SETTER", "java.lang.invoke.MethodHandle", key, "setter(" + typeName + ".class, \"" + field.getName() + "\", " + erasureName + ".class)");
+        String methodName = "set" + memberName.substring("SETTER".length());
+        accessors.append("\n    private static void ").append(methodName).append("(").append(typeName).append(" value, ").append(getTypeName(field.getGenericType())).append(" fieldValue) {\n");
+        // a generic value is passed as its erasure, the exact type of the handle
+        String argument = erasureName.equals(getTypeName(field.getGenericType())) ? "fieldValue" : "(" + erasureName + ") fieldValue";
+        accessors.append("        try {\n            ").append(memberName).append(".invokeExact(value, ").append(argument).append(");\n");
+        accessors.append("        } catch (java.lang.Throwable e) {\n            throw rethrow(e);\n        }\n    }\n");
+        return methodName;
+    }
+
+    // A static method invoking the handle of the no argument constructor, returns the method name
+    private String getConstructorMethod(Class<?> clazz) {
+        String typeName = getTypeName(clazz);
+        if (memberNames.containsKey("CONSTRUCTOR|" + typeName)) {
+            return "new" + memberNames.get("CONSTRUCTOR|" + typeName).substring("CONSTRUCTOR".length());
+        }
+        helpers.add("handles");
+        String memberName = getStaticMember("CONSTRUCTOR", "java.lang.invoke.MethodHandle", typeName, "constructor(" + typeName + ".class)");
+        String methodName = "new" + memberName.substring("CONSTRUCTOR".length());
+        accessors.append("\n    private static ").append(typeName).append(" ").append(methodName).append("() {\n");
+        accessors.append("        try {\n            return (").append(typeName).append(") ").append(memberName).append(".invokeExact();\n");
+        accessors.append("        } catch (java.lang.Throwable e) {\n            throw rethrow(e);\n        }\n    }\n");
+        return methodName;
+    }
+
+    private String getSchemaLiterals() {
+        String schemaJson = rootSchema.toString();
+        List<String> literals = new ArrayList();
+        for (int start = 0; start < schemaJson.length(); start += SCHEMA_PART_LENGTH) {
+            literals.add(toLiteral(schemaJson.substring(start, Math.min(schemaJson.length(), start + SCHEMA_PART_LENGTH))));
+        }
+        return String.join(",\n            ", literals);
+    }
+
+    private static String toLiteral(String string) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : string.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append("\"").toString();
+    }
+
+    private void appendHelpers(StringBuilder source) {
+        if (helpers.contains("readByteArray")) {
+            source.append("\n    private static byte[] readByteArray(org.apache.avro.io.Decoder in) throws java.io.IOException {\n");
+            source.append("        java.nio.ByteBuffer byteBuffer = in.readBytes(null);\n");
+            source.append("        byte[] bytes = new byte[byteBuffer.remaining()];\n");
+            source.append("        byteBuffer.get(bytes);\n");
+            source.append("        return bytes;\n    }\n");
+        }
+        if (helpers.contains("reuse")) {
+            source.append("\n    private static <T> T reuse(java.lang.Object current, java.lang.Class<T> type) {\n");
+            source.append("        return current != null && current.getClass() == type ? type.cast(current) : null;\n    }\n");
+        }
+        if (helpers.contains("readUtilDate")) {
+            source.append("\n    private static java.util.Date readUtilDate(org.apache.avro.io.Decoder in, java.util.Date reuse) throws java.io.IOException {\n");
+            source.append("        long millis = in.readLong();\n");
+            source.append("        if (reuse == null) {\n            return new java.util.Date(millis);\n        }\n");
+            source.append("        reuse.setTime(millis);\n");
+            source.append("        return reuse;\n    }\n");
+        }
+        if (helpers.contains("conversion")) {
+            source.append("\n    private static <T> org.apache.avro.Conversion<T> conversion(org.apache.avro.reflect.ReflectData reflectData, java.lang.Class<T> type, org.apache.avro.Schema schema) {\n");
+            source.append("        org.apache.avro.LogicalType logicalType = schema.getLogicalType();\n");
+            source.append("        org.apache.avro.Conversion<T> conversion = logicalType == null ? reflectData.getConversionByClass(type) : reflectData.getConversionByClass(type, logicalType);\n");
+            source.append("        if (conversion == null) {\n");
+            source.append("            throw new org.apache.avro.AvroRuntimeException(\"No conversion for \" + type.getName() + \" with logical type \" + schema.getProp(org.apache.avro.LogicalType.LOGICAL_TYPE_PROP));\n");
+            source.append("        }\n        return conversion;\n    }\n");
+        }
+        if (helpers.contains("handles")) {
+            source.append("\n    private static java.lang.reflect.Field field(java.lang.Class<?> type, java.lang.String name) {\n");
+            source.append("        for (java.lang.Class<?> c = type; c != null; c = c.getSuperclass()) {\n");
+            source.append("            try {\n");
+            source.append("                java.lang.reflect.Field field = c.getDeclaredField(name);\n");
+            source.append("                field.setAccessible(true);\n");
+            source.append("                return field;\n");
+            source.append("            } catch (java.lang.NoSuchFieldException e) {\n");
+            source.append("                // declared by a superclass\n");
+            source.append("            }\n        }\n");
+            source.append("        throw new org.apache.avro.AvroRuntimeException(\"No field \" + name + \" in \" + type.getName());\n    }\n");
+            source.append("\n    private static java.lang.invoke.MethodHandle getter(java.lang.Class<?> type, java.lang.String name, java.lang.Class<?> fieldType) {\n");
+            source.append("        try {\n");
+            source.append("            return java.lang.invoke.MethodHandles.lookup().unreflectGetter(field(type, name)).asType(java.lang.invoke.MethodType.methodType(fieldType, type));\n");
+            source.append("        } catch (java.lang.IllegalAccessException e) {\n            throw new org.apache.avro.AvroRuntimeException(e);\n        }\n    }\n");
+            source.append("\n    private static java.lang.invoke.MethodHandle setter(java.lang.Class<?> type, java.lang.String name, java.lang.Class<?> fieldType) {\n");
+            source.append("        try {\n");
+            source.append("            return java.lang.invoke.MethodHandles.lookup().unreflectSetter(field(type, name)).asType(java.lang.invoke.MethodType.methodType(void.class, type, fieldType));\n");
+            source.append("        } catch (java.lang.IllegalAccessException e) {\n            throw new org.apache.avro.AvroRuntimeException(e);\n        }\n    }\n");
+            source.append("\n    private static java.lang.invoke.MethodHandle constructor(java.lang.Class<?> type) {\n");
+            source.append("        try {\n");
+            source.append("            java.lang.reflect.Constructor<?> constructor = type.getDeclaredConstructor();\n");
+            source.append("            constructor.setAccessible(true);\n");
+            source.append("            return java.lang.invoke.MethodHandles.lookup().unreflectConstructor(constructor).asType(java.lang.invoke.MethodType.methodType(type));\n");
+            source.append("        } catch (java.lang.ReflectiveOperationException e) {\n            throw new org.apache.avro.AvroRuntimeException(e);\n        }\n    }\n");
+            source.append("\n    private static java.lang.RuntimeException rethrow(java.lang.Throwable e) {\n");
+            source.append("        if (e instanceof java.lang.Error) {\n            throw (java.lang.Error) e;\n        }\n");
+            source.append("        return e instanceof java.lang.RuntimeException ? (java.lang.RuntimeException) e : new org.apache.avro.AvroRuntimeException(e);\n    }\n");
+        }
+    }
+
+    private String newVariable() {
+        return "v" + variables++;
+    }
+
+    private void line(String line) {
+        for (int i = 0; i < indent; i++) {
+            methods.append("    ");
+        }
+        methods.append(line).append("\n");
+    }
+
+    private void open(String line) {
+        line(line);
+        indent++;
+    }
+
+    private void reopen(String line) {
+        indent--;
+        line(line);
+        indent++;
+    }
+
+    private void close(String line) {
+        indent--;
+        line(line);
+    }
+
+}
@@ -4,9 +4,17 @@ import org.apache.avro.Conversion;
 import org.apache.avro.LogicalType;
 import org.apache.avro.Schema;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class AvroConversions {
 
@@ -68,4 +76,96 @@ public class AvroConversions {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Encodes a zoned date time as bytes holding the epoch millis, the nanos of the milli, the offset seconds and the zone id, the first three as
+     * zigzag varints like Avro encodes a long. The zone id is left out when the zone is the offset. About 10 bytes plus the length of a region
+     * id, where the ISO string of {@link ZonedDateTimestampMillis} takes about 45. The zone id is written as text rather than as an index into
+     * the zone rules of the JVM, their order changes between time zone database versions. Decoded zone ids are cached.
+     */
+    public static class ZonedDateTimestampCompact extends Conversion<ZonedDateTime> {
+
+        // 3 varints of at most 10, 5 and 5 bytes and the varint length of the zone id
+        private static final int MAX_HEADER_LENGTH = 25;
+        private static final ConcurrentMap<String, ZoneId> ZONE_IDS = new ConcurrentHashMap();
+        private static final ConcurrentMap<ZoneId, byte[]> ZONE_ID_BYTES = new ConcurrentHashMap();
+        private static final byte[] NO_ZONE_ID = new byte[0];
+
+        @Override
+        public Class<ZonedDateTime> getConvertedType() {
+            return ZonedDateTime.class;
+        }
+
+        @Override
+        public String getLogicalTypeName() {
+            return AvroLogicalTypes.ZONED_DATE_TIMESTAMP_COMPACT;
+        }
+
+        @Override
+        public ByteBuffer toBytes(ZonedDateTime zonedDateTime, Schema schema, LogicalType type) {
+            if (zonedDateTime == null) {
+                return null;
+            }
+            ZoneId zoneId = zonedDateTime.getZone();
+            byte[] zoneIdBytes = zoneId.equals(zonedDateTime.getOffset()) ? NO_ZONE_ID : ZONE_ID_BYTES.computeIfAbsent(zoneId, key -> key.getId().getBytes(StandardCharsets.UTF_8));
+            Instant instant = zonedDateTime.toInstant();
+            long epochMillis = Math.multiplyExact(instant.getEpochSecond(), 1000L) + instant.getNano() / 1_000_000;
+            byte[] bytes = new byte[MAX_HEADER_LENGTH + zoneIdBytes.length];
+            int position = writeLong(bytes, 0, epochMillis);
+            position = writeLong(bytes, position, instant.getNano() % 1_000_000);
+            position = writeLong(bytes, position, zonedDateTime.getOffset().getTotalSeconds());
+            position = writeLong(bytes, position, zoneIdBytes.length);
+            System.arraycopy(zoneIdBytes, 0, bytes, position, zoneIdBytes.length);
+            return ByteBuffer.wrap(bytes, 0, position + zoneIdBytes.length);
+        }
+
+        @Override
+        public ZonedDateTime fromBytes(ByteBuffer byteBuffer, Schema schema, LogicalType type) {
+            if (byteBuffer == null) {
+                return null;
+            }
+            ByteBuffer bytes = byteBuffer.duplicate();
+            long epochMillis = readLong(bytes);
+            int nanoOfMilli = (int) readLong(bytes);
+            ZoneOffset zoneOffset = ZoneOffset.ofTotalSeconds((int) readLong(bytes));
+            int zoneIdLength = (int) readLong(bytes);
+            ZoneId zoneId = zoneOffset;
+            if (zoneIdLength > 0) {
+                byte[] zoneIdBytes = new byte[zoneIdLength];
+                bytes.get(zoneIdBytes);
+                zoneId = ZONE_IDS.computeIfAbsent(new String(zoneIdBytes, StandardCharsets.UTF_8), ZoneId::of);
+            }
+            long epochSecond = Math.floorDiv(epochMillis, 1000L);
+            int nano = (int) Math.floorMod(epochMillis, 1000L) * 1_000_000 + nanoOfMilli;
+            // the offset is kept, also for a local date time in the overlap of a daylight saving time transition
+            return ZonedDateTime.ofInstant(LocalDateTime.ofEpochSecond(epochSecond, nano, zoneOffset), zoneOffset, zoneId);
+        }
+
+        @Override
+        public Schema getRecommendedSchema() {
+            return AvroLogicalTypes.zonedDateTimestampCompact().addToSchema(Schema.create(Schema.Type.BYTES));
+        }
+
+        private static int writeLong(byte[] bytes, int position, long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                bytes[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            bytes[position++] = (byte) zigzag;
+            return position;
+        }
+
+        private static long readLong(ByteBuffer bytes) {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes.get();
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+    }
+
+}
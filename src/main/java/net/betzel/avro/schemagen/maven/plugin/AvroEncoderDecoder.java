@@ -1,51 +1,516 @@
 package net.betzel.avro.schemagen.maven.plugin;
 
 import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
 import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.message.BadHeaderException;
+import org.apache.avro.message.MissingSchemaException;
+import org.apache.avro.message.SchemaStore;
 import org.apache.avro.reflect.ReflectData;
+import org.apache.avro.util.ByteBufferInputStream;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class AvroEncoderDecoder<T> {
 
     // Encoder and Decoder are not thread-safe, DatumReader and DatumWriter are thread-save
 
+    // Encode buffers pooled per thread, see encodeEach. A buffer is taken out while in use, so a nested encode on the same thread gets
+    // a buffer of its own
+    private static final ThreadLocal<PooledBuffer> POOLED_BUFFERS = new ThreadLocal();
+    // Marker of the single object encoding, followed by the little endian CRC-64-AVRO fingerprint of the writer schema
+    private static final byte[] MESSAGE_MARKER = new byte[]{(byte) 0xC3, (byte) 0x01};
+    private static final int MESSAGE_HEADER_LENGTH = MESSAGE_MARKER.length + Long.BYTES;
+    // Long-lived codecs per ReflectData and schema. The codecs reference their ReflectData, a strongly held value would keep the weak key
+    // reachable forever, so the values are held softly. Once cleared, the entry of a discarded ReflectData is expunged
+    private static final Map<ReflectData, SoftReference<ConcurrentMap<Schema, AvroEncoderDecoder<?>>>> CACHED_CODECS = Collections.synchronizedMap(new WeakHashMap());
+
     private final Schema schema;
     private final ReflectData reflectData;
+    private final boolean reuseCoders;
+    private final boolean generatedCodec;
+    private final SchemaGenerationException codecFailure;
+    private final DatumWriter<T> datumWriter;
+    private final DatumReader<T> datumReader;
+    private final ThreadLocal<BinaryEncoder> binaryEncoders;
+    private final ThreadLocal<BinaryDecoder> binaryDecoders;
+    private final SchemaStore schemaStore;
+    // Resolving readers per writer fingerprint, the reader schema is the schema of this codec
+    private final ConcurrentMap<Long, DatumReader<T>> resolvingReaders = new ConcurrentHashMap();
+    // Computed on first use of the single object encoding, the fingerprint is published by the write of the header
+    private long fingerprint;
+    private volatile byte[] messageHeader;
 
     public AvroEncoderDecoder(Schema schema) {
         this(schema, null);
     }
 
     public AvroEncoderDecoder(Schema schema, ReflectData reflectData) {
+        this(schema, reflectData, false);
+    }
+
+    public AvroEncoderDecoder(Schema schema, ReflectData reflectData, boolean reuseCoders) {
+        this(schema, reflectData, reuseCoders, false);
+    }
+
+    /**
+     * @param schema        the schema to encode and decode with
+     * @param reflectData   the reflect data to create the datum reader and writer with, defaults to {@link ReflectData#get()}
+     * @param reuseCoders   create the datum reader and writer once and recycle encoders and decoders per thread,
+     *                      otherwise all of them are created on every call
+     * @param generateCodec compile a codec for the class of the schema on first use, see {@link AvroCodecGenerator}, implies reuseCoders.
+     *                      Requires a JDK, the datum reader and writer of the reflect data are used when no codec can be compiled
+     */
+    public AvroEncoderDecoder(Schema schema, ReflectData reflectData, boolean reuseCoders, boolean generateCodec) {
+        this(schema, reflectData, reuseCoders, generateCodec, null);
+    }
+
+    /**
+     * @param schemaStore the store to find the writer schemas of single object encoded messages in, see {@link #decodeMessage(byte[], int, int)}.
+     *                    Messages written with the schema of this codec are decoded without it
+     */
+    public AvroEncoderDecoder(Schema schema, ReflectData reflectData, boolean reuseCoders, boolean generateCodec, SchemaStore schemaStore) {
         this.schema = schema;
         this.reflectData = Objects.isNull(reflectData) ? ReflectData.get() : reflectData;
+        this.reuseCoders = reuseCoders || generateCodec;
+        Object codec = null;
+        SchemaGenerationException codecFailure = null;
+        if (generateCodec && schema.getType() != Schema.Type.RECORD) {
+            codecFailure = new SchemaGenerationException("Schema " + schema.getFullName() + " is no record");
+        } else if (generateCodec) {
+            Class<?> rootClass = this.reflectData.getClass(schema);
+            if (Objects.isNull(rootClass)) {
+                codecFailure = new SchemaGenerationException("No class found for schema " + schema.getFullName());
+            } else {
+                codec = AvroCodecCompiler.newCodec(rootClass, schema, this.reflectData);
+                codecFailure = AvroCodecCompiler.getFailure(rootClass, schema);
+            }
+        }
+        this.generatedCodec = Objects.nonNull(codec);
+        this.codecFailure = codecFailure;
+        if (generatedCodec) {
+            //noinspection unchecked
+            this.datumWriter = (DatumWriter<T>) codec;
+            //noinspection unchecked
+            this.datumReader = (DatumReader<T>) codec;
+        } else if (this.reuseCoders) {
+            this.datumWriter = this.reflectData.createDatumWriter(schema);
+            this.datumReader = this.reflectData.createDatumReader(schema);
+        } else {
+            this.datumWriter = null;
+            this.datumReader = null;
+        }
+        this.binaryEncoders = this.reuseCoders ? new ThreadLocal() : null;
+        this.binaryDecoders = this.reuseCoders ? new ThreadLocal() : null;
+        this.schemaStore = schemaStore;
+    }
+
+    /**
+     * Returns the shared long-lived codec for the given schema and reflect data, creating it on first use. The codecs are released when
+     * memory runs low, they are created again on the next use.
+     */
+    public static <T> AvroEncoderDecoder<T> getCached(Schema schema, ReflectData reflectData) {
+        Objects.requireNonNull(schema, "Missing Schema instance!");
+        ReflectData cacheKey = Objects.isNull(reflectData) ? ReflectData.get() : reflectData;
+        ConcurrentMap<Schema, AvroEncoderDecoder<?>> schemaCodecs;
+        synchronized (CACHED_CODECS) {
+            SoftReference<ConcurrentMap<Schema, AvroEncoderDecoder<?>>> schemaCodecsReference = CACHED_CODECS.get(cacheKey);
+            schemaCodecs = Objects.isNull(schemaCodecsReference) ? null : schemaCodecsReference.get();
+            if (Objects.isNull(schemaCodecs)) {
+                schemaCodecs = new ConcurrentHashMap();
+                CACHED_CODECS.put(cacheKey, new SoftReference(schemaCodecs));
+            }
+        }
+        //noinspection unchecked
+        return (AvroEncoderDecoder<T>) schemaCodecs.computeIfAbsent(schema, key -> new AvroEncoderDecoder(key, cacheKey, true));
     }
 
     public void encodeAvro(OutputStream outputStream, T type) throws IOException {
-        DatumWriter<T> datumWriter = reflectData.createDatumWriter(schema);
-        BinaryEncoder binaryEncoder = EncoderFactory.get().binaryEncoder(outputStream, null);
-        datumWriter.write(type, binaryEncoder);
+        BinaryEncoder binaryEncoder = getBinaryEncoder(outputStream);
+        getDatumWriter().write(type, binaryEncoder);
         binaryEncoder.flush();
         outputStream.flush();
     }
 
-    public T decodeAvro(InputStream inputStream) throws IOException {
-        DatumReader<T> datumReader = reflectData.createDatumReader(schema);
+    /**
+     * Encodes the object into the remaining bytes of the byte buffer, heap or direct, and advances its position.
+     *
+     * @return the number of bytes written
+     * @throws BufferOverflowException if the object does not fit, the position of the byte buffer is left unchanged
+     */
+    public int encodeAvro(ByteBuffer byteBuffer, T type) throws IOException {
+        int position = byteBuffer.position();
+        try {
+            BinaryEncoder binaryEncoder = getBinaryEncoder(new ByteBufferOutputStream(byteBuffer));
+            getDatumWriter().write(type, binaryEncoder);
+            binaryEncoder.flush();
+        } catch (BufferOverflowException e) {
+            byteBuffer.position(position);
+            throw e;
+        }
+        return byteBuffer.position() - position;
+    }
+
+    /**
+     * Encodes the object into a buffer pooled per thread, the returned array is its only copy.
+     */
+    public byte[] encodeAvro(T type) throws IOException {
+        PooledBuffer pooledBuffer = PooledBuffer.acquire();
+        try {
+            pooledBuffer.reset();
+            BinaryEncoder binaryEncoder = getBinaryEncoder(pooledBuffer);
+            getDatumWriter().write(type, binaryEncoder);
+            binaryEncoder.flush();
+            return pooledBuffer.toByteArray();
+        } finally {
+            PooledBuffer.release(pooledBuffer);
+        }
+    }
+
+    /**
+     * Writes the object in the Avro single object encoding, the encoded object prefixed with the fingerprint of the schema.
+     */
+    public void encodeMessage(OutputStream outputStream, T type) throws IOException {
+        outputStream.write(getMessageHeader());
+        encodeAvro(outputStream, type);
+    }
+
+    /**
+     * Encodes the object in the Avro single object encoding, see {@link #encodeMessage(OutputStream, Object)}.
+     */
+    public byte[] encodeMessage(T type) throws IOException {
+        PooledBuffer pooledBuffer = PooledBuffer.acquire();
+        try {
+            pooledBuffer.reset();
+            pooledBuffer.write(getMessageHeader());
+            BinaryEncoder binaryEncoder = getBinaryEncoder(pooledBuffer);
+            getDatumWriter().write(type, binaryEncoder);
+            binaryEncoder.flush();
+            return pooledBuffer.toByteArray();
+        } finally {
+            PooledBuffer.release(pooledBuffer);
+        }
+    }
+
+    /**
+     * Encodes the objects one after the other through one encoder, the encoder and the output stream are flushed once.
+     */
+    public void encodeAll(OutputStream outputStream, Iterable<? extends T> types) throws IOException {
+        DatumWriter<T> datumWriter = getDatumWriter();
+        BinaryEncoder binaryEncoder = getBinaryEncoder(outputStream);
+        for (T type : types) {
+            datumWriter.write(type, binaryEncoder);
+        }
+        binaryEncoder.flush();
+        outputStream.flush();
+    }
+
+    /**
+     * Encodes every object into a buffer that is pooled per thread and passes the encoded bytes to the consumer, one message per object.
+     * The byte buffer is only valid until the consumer returns, its bytes have to be copied or written before.
+     */
+    public void encodeEach(Iterable<? extends T> types, Consumer<ByteBuffer> consumer) throws IOException {
+        DatumWriter<T> datumWriter = getDatumWriter();
+        PooledBuffer pooledBuffer = PooledBuffer.acquire();
+        BinaryEncoder binaryEncoder = null;
+        try {
+            for (T type : types) {
+                pooledBuffer.reset();
+                binaryEncoder = EncoderFactory.get().binaryEncoder(pooledBuffer, binaryEncoder);
+                datumWriter.write(type, binaryEncoder);
+                binaryEncoder.flush();
+                consumer.accept(pooledBuffer.toByteBuffer());
+            }
+        } finally {
+            PooledBuffer.release(pooledBuffer);
+        }
+    }
+
+    /**
+     * Lazily decodes the objects written by {@link #encodeAll(OutputStream, Iterable)} until the end of the input stream.
+     *
+     * @param reuseDatum decode every object into the previous one, which therefore has to be consumed before the next is decoded
+     */
+    public Stream<T> decodeAll(InputStream inputStream, boolean reuseDatum) {
+        DatumReader<T> datumReader = getDatumReader();
+        // a decoder of its own, the stream may be consumed while other objects are decoded on the same thread
         BinaryDecoder binaryDecoder = DecoderFactory.get().binaryDecoder(inputStream, null);
+        Iterator<T> iterator = new Iterator<T>() {
+
+            private T datum;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    return !binaryDecoder.isEnd();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    datum = datumReader.read(reuseDatum ? datum : null, binaryDecoder);
+                    return datum;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    public T decodeAvro(InputStream inputStream) throws IOException {
+        return decodeAvro(inputStream, null);
+    }
+
+    /**
+     * Decodes the object straight from the array, without copying the bytes.
+     */
+    public T decodeAvro(byte[] bytes, int offset, int length) throws IOException {
+        return decode(getDatumReader(), bytes, offset, length);
+    }
+
+    /**
+     * Decodes the object from the remaining bytes of the byte buffer, the bytes of a heap buffer are not copied. The position of the
+     * byte buffer is left unchanged.
+     */
+    public T decodeAvro(ByteBuffer byteBuffer) throws IOException {
+        if (byteBuffer.hasArray()) {
+            return decodeAvro(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.remaining());
+        }
+        return decodeAvro(new ByteBufferInputStream(Collections.singletonList(byteBuffer.duplicate())));
+    }
+
+    /**
+     * @param reuse the object to decode into, a generated codec also reads into its nested records and dates
+     */
+    public T decodeAvro(InputStream inputStream, T reuse) throws IOException {
+        return decode(getDatumReader(), inputStream, reuse);
+    }
+
+    /**
+     * Decodes a message in the Avro single object encoding. A message written with another schema is resolved against the schema of this
+     * codec, its writer schema is looked up in the schema store once, the resolving reader is kept for the following messages.
+     *
+     * @throws BadHeaderException     if the bytes do not start with the single object encoding header
+     * @throws MissingSchemaException if the writer schema is not found
+     */
+    public T decodeMessage(byte[] bytes, int offset, int length) throws IOException {
+        if (length < MESSAGE_HEADER_LENGTH || bytes[offset] != MESSAGE_MARKER[0] || bytes[offset + 1] != MESSAGE_MARKER[1]) {
+            throw new BadHeaderException("Not a single object encoded message");
+        }
+        long fingerprint = 0L;
+        for (int i = MESSAGE_HEADER_LENGTH - 1; i >= MESSAGE_MARKER.length; i--) {
+            fingerprint = fingerprint << 8 | bytes[offset + i] & 0xFFL;
+        }
+        return decode(getMessageReader(fingerprint), bytes, offset + MESSAGE_HEADER_LENGTH, length - MESSAGE_HEADER_LENGTH);
+    }
+
+    /**
+     * Decodes a message in the Avro single object encoding from the remaining bytes of the byte buffer, see {@link #decodeMessage(byte[], int, int)}.
+     * The position of the byte buffer is left unchanged.
+     */
+    public T decodeMessage(ByteBuffer byteBuffer) throws IOException {
+        if (byteBuffer.hasArray()) {
+            return decodeMessage(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.remaining());
+        }
+        return decodeMessage(new ByteBufferInputStream(Collections.singletonList(byteBuffer.duplicate())));
+    }
+
+    /**
+     * Decodes a message in the Avro single object encoding, see {@link #decodeMessage(byte[], int, int)}.
+     */
+    public T decodeMessage(InputStream inputStream) throws IOException {
+        byte[] header = new byte[MESSAGE_HEADER_LENGTH];
+        int length = 0;
+        for (int read = 0; read >= 0 && length < header.length; length += read) {
+            read = inputStream.read(header, length, header.length - length);
+        }
+        if (length < header.length || header[0] != MESSAGE_MARKER[0] || header[1] != MESSAGE_MARKER[1]) {
+            throw new BadHeaderException("Not a single object encoded message");
+        }
+        long fingerprint = ByteBuffer.wrap(header, MESSAGE_MARKER.length, Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).getLong();
+        return decode(getMessageReader(fingerprint), inputStream, null);
+    }
+
+    private T decode(DatumReader<T> datumReader, byte[] bytes, int offset, int length) throws IOException {
+        BinaryDecoder binaryDecoder;
+        if (reuseCoders) {
+            binaryDecoder = DecoderFactory.get().binaryDecoder(bytes, offset, length, binaryDecoders.get());
+            binaryDecoders.set(binaryDecoder);
+        } else {
+            binaryDecoder = DecoderFactory.get().binaryDecoder(bytes, offset, length, null);
+        }
         return datumReader.read(null, binaryDecoder);
     }
 
+    private T decode(DatumReader<T> datumReader, InputStream inputStream, T reuse) throws IOException {
+        BinaryDecoder binaryDecoder;
+        if (reuseCoders) {
+            binaryDecoder = DecoderFactory.get().binaryDecoder(inputStream, binaryDecoders.get());
+            binaryDecoders.set(binaryDecoder);
+        } else {
+            binaryDecoder = DecoderFactory.get().binaryDecoder(inputStream, null);
+        }
+        return datumReader.read(reuse, binaryDecoder);
+    }
+
+    // A writer schema that is not found is not cached, the store may know it later
+    private DatumReader<T> getMessageReader(long fingerprint) {
+        if (fingerprint == getFingerprint()) {
+            return getDatumReader();
+        }
+        return resolvingReaders.computeIfAbsent(fingerprint, key -> {
+            Schema writerSchema = Objects.isNull(schemaStore) ? null : schemaStore.findByFingerprint(key);
+            if (Objects.isNull(writerSchema)) {
+                throw new MissingSchemaException("Cannot resolve the writer schema of fingerprint " + Long.toHexString(key));
+            }
+            //noinspection unchecked
+            return reflectData.createDatumReader(writerSchema, schema);
+        });
+    }
+
+    private byte[] getMessageHeader() {
+        byte[] header = messageHeader;
+        if (Objects.isNull(header)) {
+            fingerprint = SchemaNormalization.parsingFingerprint64(schema);
+            header = ByteBuffer.allocate(MESSAGE_HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN).put(MESSAGE_MARKER).putLong(fingerprint).array();
+            messageHeader = header;
+        }
+        return header;
+    }
+
+    private DatumWriter<T> getDatumWriter() {
+        return reuseCoders ? datumWriter : reflectData.createDatumWriter(schema);
+    }
+
+    private DatumReader<T> getDatumReader() {
+        return reuseCoders ? datumReader : reflectData.createDatumReader(schema);
+    }
+
+    private BinaryEncoder getBinaryEncoder(OutputStream outputStream) {
+        if (!reuseCoders) {
+            return EncoderFactory.get().binaryEncoder(outputStream, null);
+        }
+        BinaryEncoder binaryEncoder = EncoderFactory.get().binaryEncoder(outputStream, binaryEncoders.get());
+        binaryEncoders.set(binaryEncoder);
+        return binaryEncoder;
+    }
+
     public Schema getSchema() {
         return schema;
     }
 
-}
\ No newline at end of file
+    /**
+     * Returns the CRC-64-AVRO fingerprint of the parsing canonical form of the schema, as written in the single object encoding header.
+     */
+    public long getFingerprint() {
+        getMessageHeader();
+        return fingerprint;
+    }
+
+    public boolean isReuseCoders() {
+        return reuseCoders;
+    }
+
+    /**
+     * Whether a compiled codec encodes and decodes, rather than the datum reader and writer of the reflect data.
+     */
+    public boolean isGeneratedCodec() {
+        return generatedCodec;
+    }
+
+    /**
+     * Returns why no codec was compiled, with the compiler errors in its message or the exception as its cause, null if a codec was
+     * compiled or none was requested.
+     */
+    public SchemaGenerationException getCodecFailure() {
+        return codecFailure;
+    }
+
+    // Writes the chunks flushed by an encoder into a byte buffer
+    private static final class ByteBufferOutputStream extends OutputStream {
+
+        private final ByteBuffer byteBuffer;
+
+        private ByteBufferOutputStream(ByteBuffer byteBuffer) {
+            this.byteBuffer = byteBuffer;
+        }
+
+        @Override
+        public void write(int b) {
+            byteBuffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            byteBuffer.put(bytes, offset, length);
+        }
+
+    }
+
+    // A byte array output stream whose bytes are wrapped rather than copied
+    private static final class PooledBuffer extends ByteArrayOutputStream {
+
+        // A buffer grown beyond this size by a large object is not kept for the next batch
+        private static final int MAX_POOLED_SIZE = 1 << 20;
+
+        private PooledBuffer() {
+            super(1024);
+        }
+
+        private ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+        private static PooledBuffer acquire() {
+            PooledBuffer pooledBuffer = POOLED_BUFFERS.get();
+            if (Objects.isNull(pooledBuffer)) {
+                return new PooledBuffer();
+            }
+            POOLED_BUFFERS.set(null);
+            return pooledBuffer;
+        }
+
+        private static void release(PooledBuffer pooledBuffer) {
+            pooledBuffer.reset();
+            if (pooledBuffer.buf.length > MAX_POOLED_SIZE) {
+                pooledBuffer.buf = new byte[1024];
+            }
+            POOLED_BUFFERS.set(pooledBuffer);
+        }
+
+    }
+
+}
@@ -7,10 +7,12 @@ public class AvroLogicalTypes {
 
     public static final String UTIL_DATE_TIMESTAMP_MILLIS = "util-date-timestamp-millis";
     public static final String ZONED_DATE_TIMESTAMP_MILLIS = "zoned-date-timestamp-millis";
+    public static final String ZONED_DATE_TIMESTAMP_COMPACT = "zoned-date-timestamp-compact";
     public static final String SERIALIZABLE_MARKER_INTERFACE = "serializable-marker-interface";
 
     private static final AvroLogicalTypes.UtilDateTimestampMillis UTIL_DATE_TIMESTAMP_MILLIS_TYPE = new AvroLogicalTypes.UtilDateTimestampMillis();
     private static final AvroLogicalTypes.ZonedDateTimestampMillis ZONED_DATE_TIMESTAMP_MILLIS_TYPE = new AvroLogicalTypes.ZonedDateTimestampMillis();
+    private static final AvroLogicalTypes.ZonedDateTimestampCompact ZONED_DATE_TIMESTAMP_COMPACT_TYPE = new AvroLogicalTypes.ZonedDateTimestampCompact();
 
     public static AvroLogicalTypes.UtilDateTimestampMillis utilDateTimestampMillis() {
         return UTIL_DATE_TIMESTAMP_MILLIS_TYPE;
@@ -20,6 +22,10 @@ public class AvroLogicalTypes {
         return ZONED_DATE_TIMESTAMP_MILLIS_TYPE;
     }
 
+    public static AvroLogicalTypes.ZonedDateTimestampCompact zonedDateTimestampCompact() {
+        return ZONED_DATE_TIMESTAMP_COMPACT_TYPE;
+    }
+
     public static class UtilDateTimestampMillis extends LogicalType {
 
         private UtilDateTimestampMillis() {
@@ -50,4 +56,19 @@ public class AvroLogicalTypes {
         }
     }
 
-}
\ No newline at end of file
+    public static class ZonedDateTimestampCompact extends LogicalType {
+
+        private ZonedDateTimestampCompact() {
+            super(ZONED_DATE_TIMESTAMP_COMPACT);
+        }
+
+        @Override
+        public void validate(Schema schema) {
+            super.validate(schema);
+            if (schema.getType() != Schema.Type.BYTES) {
+                throw new IllegalArgumentException("Zoned date timestamp (compact) can only be used with an underlying bytes type");
+            }
+        }
+    }
+
+}
@@ -1,6 +1,5 @@
 package net.betzel.avro.schemagen.maven.plugin;
 
-import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Conversion;
 import org.apache.avro.Protocol;
 import org.apache.avro.Schema;
@@ -12,7 +11,6 @@ import org.apache.avro.util.ClassUtils;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -22,6 +20,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -29,16 +28,24 @@ import static net.betzel.avro.schemagen.maven.plugin.ReflectDataNullableFields.P
 import static org.apache.avro.LogicalType.LOGICAL_TYPE_PROP;
 import static org.apache.avro.Schema.Field.NULL_DEFAULT_VALUE;
 
-public final class AvroSchemaGenerator {
+public final class AvroSchemaGenerator implements SchemaGenerator {
 
     private static final Pattern uppercaseClassNamePattern = Pattern.compile("\\.[A-Z]");
 
     private final ReflectData reflectData;
-    private final RecordCache recordCache = new RecordCache();
-    private final Map<String, Schema> customSchemas = new HashMap();
-    private final Map<String, Set<Schema>> globalPolymorphicTypeSchemas = new HashMap();
-    private final Map<String, Map<String, Set<Schema>>> fieldPolymorphicTypeSchemas = new HashMap();
+    private final RecordCache recordCache;
+    private final Map<String, Schema> customSchemas;
+    private final Map<String, Set<Schema>> globalPolymorphicTypeSchemas;
+    private final Map<String, Map<String, Set<Schema>>> fieldPolymorphicTypeSchemas;
+    // Compiled after the last declaration, null while declarations are pending
+    private PolymorphicTypeIndex polymorphicTypeIndex;
+    // Ordered unions by base type full name, effective field binding and nullability
+    private final Map<String, Schema> polymorphicTypesCache = new HashMap();
+    private long polymorphicTypesCacheHits;
+    private long polymorphicTypesCacheMisses;
     private boolean allowNullFields;
+    // Frozen generators and their forks reject further declarations
+    private boolean frozen;
 
     public AvroSchemaGenerator(boolean allowNullFields, boolean useCustomCoders, boolean defaultsGenerated) {
         if (allowNullFields) {
@@ -49,6 +56,22 @@ public final class AvroSchemaGenerator {
         this.allowNullFields = allowNullFields;
         this.reflectData.setCustomCoders(useCustomCoders);
         this.reflectData.setDefaultsGenerated(defaultsGenerated);
+        this.recordCache = new RecordCache();
+        this.customSchemas = new HashMap();
+        this.globalPolymorphicTypeSchemas = new HashMap();
+        this.fieldPolymorphicTypeSchemas = new HashMap();
+    }
+
+    // A fork shares the reflect data and the frozen declarations, and publishes its completed records to the shared records
+    private AvroSchemaGenerator(AvroSchemaGenerator frozenGenerator, ConcurrentMap<String, Schema> sharedRecords) {
+        this.reflectData = frozenGenerator.reflectData;
+        this.allowNullFields = frozenGenerator.allowNullFields;
+        this.recordCache = new RecordCache(sharedRecords);
+        this.customSchemas = frozenGenerator.customSchemas;
+        this.globalPolymorphicTypeSchemas = frozenGenerator.globalPolymorphicTypeSchemas;
+        this.fieldPolymorphicTypeSchemas = frozenGenerator.fieldPolymorphicTypeSchemas;
+        this.polymorphicTypeIndex = frozenGenerator.polymorphicTypeIndex;
+        this.frozen = true;
     }
 
     public static String unionTypesToString(Schema schema) {
@@ -65,8 +88,9 @@ public final class AvroSchemaGenerator {
 
     // Register polymorphic types
     public void declarePolymorphicType(String fieldSymbol, Type... types) {
-        // Declare a polymorphic type
-        recordCache.clear();
+        checkNotFrozen();
+        // Declare a polymorphic type, the type index and caches are rebuilt once on the next generation
+        polymorphicTypeIndex = null;
         for (Type type : types) {
             Schema subtypeSchema = reflectData.getSchema(type);
             Class superType = ((Class) type).getSuperclass();
@@ -120,19 +144,67 @@ public final class AvroSchemaGenerator {
         }
     }
 
+    // Compile the declarations into an immutable snapshot, the generator can be forked afterwards
+    void freeze() {
+        getPolymorphicTypeIndex();
+        frozen = true;
+    }
+
+    // Create a generator for a single thread on the frozen declarations of this generator
+    AvroSchemaGenerator fork(ConcurrentMap<String, Schema> sharedRecords) {
+        if (!frozen) {
+            throw new SchemaGenerationException("Only a frozen generator can be forked");
+        }
+        return new AvroSchemaGenerator(this, sharedRecords);
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new SchemaGenerationException("Declarations of a frozen generator cannot be changed");
+        }
+    }
+
+    // Register polymorphic types globally under a base class or interface, in addition to their superclasses. The global declaration of
+    // declarePolymorphicType only walks the superclasses, so implementations of an interface need their base type named
+    public void declarePolymorphicBaseType(Class<?> baseType, Type... types) {
+        declarePolymorphicType(null, types);
+        String baseTypeName = baseType.getCanonicalName();
+        Set<Schema> subTypes = globalPolymorphicTypeSchemas.get(baseTypeName);
+        if (Objects.isNull(subTypes)) {
+            subTypes = new HashSet();
+            globalPolymorphicTypeSchemas.put(baseTypeName, subTypes);
+        }
+        for (Type type : types) {
+            subTypes.add(reflectData.getSchema(type));
+        }
+    }
+
     // Create a schema for type
+    @Override
     public Schema generateSchema(Class clazz) {
         Schema schema = reflectData.getSchema(clazz);
         return globalPolymorphicTypeSchemas.isEmpty() ? schema : polymorphizeSchema(schema);
     }
 
     // Create a protocol for interface
+    @Override
     public Protocol generateProtocol(Class clazz) {
         Protocol protocol = reflectData.getProtocol(clazz);
         return globalPolymorphicTypeSchemas.isEmpty() ? protocol : polymorphizeProtocol(protocol);
     }
 
+    // Compile the declared polymorphic types once after the last declaration
+    private PolymorphicTypeIndex getPolymorphicTypeIndex() {
+        if (Objects.isNull(polymorphicTypeIndex)) {
+            recordCache.clear();
+            polymorphicTypesCache.clear();
+            polymorphicTypeIndex = new PolymorphicTypeIndex(globalPolymorphicTypeSchemas, fieldPolymorphicTypeSchemas);
+        }
+        return polymorphicTypeIndex;
+    }
+
     public Schema polymorphizeSchema(Schema rootSchema) {
+        getPolymorphicTypeIndex();
         AvroSchemaIterator avroSchemaIterator = new AvroSchemaIterator(rootSchema);
         for (Schema schema : avroSchemaIterator) {
             if (!Objects.equals(schema.getType(), Schema.Type.RECORD)) {
@@ -146,7 +218,7 @@ public final class AvroSchemaGenerator {
         }
 
         String emptySchemaName;
-        while (Objects.nonNull(emptySchemaName = recordCache.getSchemaWithoutFields())) {
+        while (Objects.nonNull(emptySchemaName = recordCache.pollSchemaWithoutFields())) {
             // Create remaining schemas
             Schema customSchema = customSchemas.get(emptySchemaName);
             if (Objects.nonNull(customSchema)) {
@@ -177,6 +249,8 @@ public final class AvroSchemaGenerator {
             }
             computeNewRecordSchema(reflectData.getSchema(polymorphicType));
         }
+        // All records are complete now and can be shared
+        recordCache.publish();
         switch (rootSchema.getType()) {
             case RECORD:
                 return recordCache.get(rootSchema);
@@ -249,31 +323,58 @@ public final class AvroSchemaGenerator {
             newTypes.add(schema);
             schema = Schema.createUnion(newTypes);
         }
-        Deque<Schema> polyTypes = new LinkedList(schema.getTypes());
-        List<Schema> finalSchemaTypes = new ArrayList();
-        while (!polyTypes.isEmpty()) {
-            Schema unionType = polyTypes.removeFirst();
-            if (unionType.getType() == Schema.Type.RECORD) {
-                unionType = recordCache.getOrCreate(unionType);
+        PolymorphicTypeIndex typeIndex = getPolymorphicTypeIndex();
+        String cacheKey = getPolymorphicTypesCacheKey(schema, fieldSymbols);
+        if (Objects.nonNull(cacheKey)) {
+            Schema cachedSchema = polymorphicTypesCache.get(cacheKey);
+            if (Objects.nonNull(cachedSchema)) {
+                polymorphicTypesCacheHits++;
+                return cachedSchema;
             }
-            finalSchemaTypes.add(unionType);
-            Collection<Schema> subTypes = null;
+            polymorphicTypesCacheMisses++;
+        }
+        List<Schema> finalSchemaTypes = new ArrayList();
+        for (Schema unionType : schema.getTypes()) {
+            finalSchemaTypes.add(getOrCreateRecord(unionType));
             if (isNamedType(unionType)) {
-                String className = SpecificData.getClassName(unionType);
-                // check field specific subtypes first
-                Map<String, Set<Schema>> fieldPolymorphicTypeSchemaMap = fieldPolymorphicTypeSchemas.get(fieldSymbols);
-                if (Objects.isNull(fieldPolymorphicTypeSchemaMap)) {
-                    subTypes = globalPolymorphicTypeSchemas.get(className);
-                } else {
-                    subTypes = fieldPolymorphicTypeSchemaMap.get(className);
+                // field specific subtypes take precedence over global ones, the index holds all transitive subtypes
+                Collection<Schema> subTypes = typeIndex.getSubTypes(fieldSymbols, SpecificData.getClassName(unionType));
+                if (Objects.nonNull(subTypes)) {
+                    for (Schema subType : subTypes) {
+                        finalSchemaTypes.add(getOrCreateRecord(subType));
+                    }
                 }
             }
-            if (Objects.isNull(subTypes)) {
-                continue;
+        }
+        Schema polymorphicSchema = Schema.createUnion(orderUnionSchemas(finalSchemaTypes));
+        if (Objects.nonNull(cacheKey)) {
+            polymorphicTypesCache.put(cacheKey, polymorphicSchema);
+        }
+        return polymorphicSchema;
+    }
+
+    private Schema getOrCreateRecord(Schema schema) {
+        return schema.getType() == Schema.Type.RECORD ? recordCache.getOrCreate(schema) : schema;
+    }
+
+    // Return the cache key for unions of a single named type and optionally null, or null if the union is not cacheable
+    private String getPolymorphicTypesCacheKey(Schema unionSchema, String fieldSymbols) {
+        Schema namedSchema = null;
+        boolean nullable = false;
+        for (Schema unionType : unionSchema.getTypes()) {
+            if (unionType.getType() == Schema.Type.NULL) {
+                nullable = true;
+            } else if (Objects.isNull(namedSchema) && isNamedType(unionType)) {
+                namedSchema = unionType;
+            } else {
+                return null;
             }
-            polyTypes.addAll(subTypes);
         }
-        return Schema.createUnion(orderUnionSchemas(finalSchemaTypes));
+        if (Objects.isNull(namedSchema)) {
+            return null;
+        }
+        String fieldBinding = polymorphicTypeIndex.hasFieldBinding(fieldSymbols) ? fieldSymbols : "";
+        return namedSchema.getFullName() + "|" + fieldBinding + "|" + nullable;
     }
 
     private List<Schema> orderUnionSchemas(List<Schema> unionSchemas) {
@@ -348,16 +449,19 @@ public final class AvroSchemaGenerator {
 
     // Return whether unionType is a named type
     private boolean isNamedType(Schema unionType) {
-        try {
-            unionType.getNamespace();
-        } catch (AvroRuntimeException e) {
-            return false;
+        switch (unionType.getType()) {
+            case RECORD:
+            case ENUM:
+            case FIXED:
+                return true;
+            default:
+                return false;
         }
-        return true;
     }
 
     // Declares that schemas has a custom name not on the classpath
     public void declareCustomNamedSchema(Schema schema) {
+        checkNotFrozen();
         String typeName = schema.getFullName();
         if (!(isNamedType(schema))) {
             throw new SchemaGenerationException("Schema provided for " + typeName + " is not a NamedSchema");
@@ -373,15 +477,18 @@ public final class AvroSchemaGenerator {
     }
 
     public void setConversions(List<Conversion<?>> conversions) {
+        checkNotFrozen();
         for (Conversion<?> conversion : conversions) {
             this.reflectData.addLogicalTypeConversion(conversion);
         }
     }
 
     public void addConversion(Conversion<?> conversion) {
+        checkNotFrozen();
         this.reflectData.addLogicalTypeConversion(conversion);
     }
 
+    @Override
     public ReflectData getReflectData() {
         return this.reflectData;
     }
@@ -390,4 +497,27 @@ public final class AvroSchemaGenerator {
         return globalPolymorphicTypeSchemas.size() > 0;
     }
 
+    public long getPolymorphicTypesCacheHits() {
+        return polymorphicTypesCacheHits;
+    }
+
+    public long getPolymorphicTypesCacheMisses() {
+        return polymorphicTypesCacheMisses;
+    }
+
+    @Override
+    public long getCreatedRecords() {
+        return recordCache.getCreatedRecords();
+    }
+
+    @Override
+    public long getCompletedRecords() {
+        return recordCache.getCompletedRecords();
+    }
+
+    @Override
+    public long getReusedRecords() {
+        return recordCache.getReusedRecords();
+    }
+
 }
\ No newline at end of file
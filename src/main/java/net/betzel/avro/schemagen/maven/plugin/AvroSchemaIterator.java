@@ -2,48 +2,62 @@ package net.betzel.avro.schemagen.maven.plugin;
 
 import org.apache.avro.Schema;
 
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.Deque;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+// Breadth first traversal of a schema graph, visiting each schema instance once
 public class AvroSchemaIterator implements Iterable<Schema>, Iterator<Schema> {
 
     private final Deque<Schema> nodesToIterate;
-    private final Set<Integer> iteratedNodes;
-    private Schema currentSchema;
+    private final Set<Schema> iteratedNodes;
 
     public AvroSchemaIterator(Schema rootSchema) {
         Objects.requireNonNull(rootSchema, "Missing Schema instance!");
-        nodesToIterate = new LinkedList();
-        iteratedNodes = new HashSet();
-        nodesToIterate.addFirst(rootSchema);
+        nodesToIterate = new ArrayDeque();
+        iteratedNodes = Collections.newSetFromMap(new IdentityHashMap());
+        addNode(rootSchema);
     }
 
-    private static List<Schema> getChildNodes(Schema schema) {
-        List<Schema> childNodes = new ArrayList<>();
+    public static Stream<Schema> stream(Schema rootSchema) {
+        return new AvroSchemaIterator(rootSchema).stream();
+    }
+
+    // Queue a schema unless it has been seen before, schemas are compared by identity
+    private void addNode(Schema schema) {
+        if (iteratedNodes.add(schema)) {
+            nodesToIterate.addLast(schema);
+        }
+    }
 
+    private void addChildNodes(Schema schema) {
         switch (schema.getType()) {
             case RECORD:
                 for (Schema.Field field : schema.getFields()) {
-                    childNodes.add(field.schema());
+                    addNode(field.schema());
                 }
                 break;
             case UNION:
-                childNodes.addAll(schema.getTypes());
+                for (Schema type : schema.getTypes()) {
+                    addNode(type);
+                }
                 break;
             case ARRAY:
-                childNodes.add(schema.getElementType());
+                addNode(schema.getElementType());
                 break;
             case MAP:
-                childNodes.add(schema.getValueType());
+                addNode(schema.getValueType());
                 break;
         }
-        return childNodes;
     }
 
     @Override
@@ -51,23 +65,28 @@ public class AvroSchemaIterator implements Iterable<Schema>, Iterator<Schema> {
         return this;
     }
 
+    @Override
+    public Spliterator<Schema> spliterator() {
+        return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    public Stream<Schema> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
     @Override
     public boolean hasNext() {
-        while (!nodesToIterate.isEmpty()) {
-            currentSchema = nodesToIterate.removeFirst();
-            Integer identityHashCode = System.identityHashCode(currentSchema);
-            if (!iteratedNodes.contains(identityHashCode)) {
-                iteratedNodes.add(identityHashCode);
-                nodesToIterate.addAll(getChildNodes(currentSchema));
-                return true;
-            }
-        }
-        return false;
+        return !nodesToIterate.isEmpty();
     }
 
     @Override
     public Schema next() {
+        Schema currentSchema = nodesToIterate.pollFirst();
+        if (Objects.isNull(currentSchema)) {
+            throw new NoSuchElementException();
+        }
+        addChildNodes(currentSchema);
         return currentSchema;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,256 @@
+package net.betzel.avro.schemagen.maven.plugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Reads the headers of the class files in directories and jar files, and builds the superclass and interface graph from them
+ * without loading or defining any class. Classes are identified by their binary names, e.g. com.acme.Outer$Inner.
+ */
+public final class ClassFileScanner {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final Map<String, ClassHeader> classHeaders = new HashMap();
+    // Direct subclasses and implementations by super class or interface name
+    private final Map<String, List<String>> directSubTypes = new HashMap();
+
+    public ClassFileScanner(Iterable<File> classPath) throws IOException {
+        for (File file : classPath) {
+            if (file.isDirectory()) {
+                scanDirectory(file.toPath());
+            } else if (file.isFile()) {
+                scanJarFile(file);
+            }
+        }
+        for (ClassHeader classHeader : classHeaders.values()) {
+            if (Objects.nonNull(classHeader.superName)) {
+                addDirectSubType(classHeader.superName, classHeader.name);
+            }
+            for (String interfaceName : classHeader.interfaceNames) {
+                addDirectSubType(interfaceName, classHeader.name);
+            }
+        }
+    }
+
+    private void addDirectSubType(String typeName, String subTypeName) {
+        List<String> subTypeNames = directSubTypes.get(typeName);
+        if (Objects.isNull(subTypeNames)) {
+            subTypeNames = new ArrayList();
+            directSubTypes.put(typeName, subTypeNames);
+        }
+        subTypeNames.add(subTypeName);
+    }
+
+    private void scanDirectory(Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (isClassFile(file.getFileName().toString())) {
+                    addClassHeader(Files.readAllBytes(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void scanJarFile(File file) throws IOException {
+        try (JarFile jarFile = new JarFile(file)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry jarEntry = entries.nextElement();
+                String name = jarEntry.getName();
+                // versioned classes of multi release jars share the names of the base classes
+                if (!jarEntry.isDirectory() && isClassFile(name) && !name.startsWith("META-INF/")) {
+                    try (InputStream inputStream = jarFile.getInputStream(jarEntry)) {
+                        addClassHeader(readAllBytes(inputStream));
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isClassFile(String name) {
+        return name.endsWith(CLASS_SUFFIX) && !name.endsWith("module-info.class") && !name.endsWith("package-info.class");
+    }
+
+    private static byte[] readAllBytes(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while (-1 != (n = inputStream.read(buffer))) {
+            byteArrayOutputStream.write(buffer, 0, n);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private void addClassHeader(byte[] bytes) throws IOException {
+        ClassHeader classHeader = readClassHeader(bytes);
+        // the first class on the class path wins, as with class loading
+        if (!classHeaders.containsKey(classHeader.name)) {
+            classHeaders.put(classHeader.name, classHeader);
+        }
+    }
+
+    // Read the access flags, name, super class and interfaces, which follow the constant pool
+    static ClassHeader readClassHeader(byte[] bytes) throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+        if (byteBuffer.getInt() != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        // minor and major version
+        byteBuffer.getInt();
+        int constantPoolCount = byteBuffer.getShort() & 0xffff;
+        int[] utf8Offsets = new int[constantPoolCount];
+        int[] classNameIndexes = new int[constantPoolCount];
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = byteBuffer.get();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8Offsets[i] = byteBuffer.position();
+                    byteBuffer.position(byteBuffer.position() + 2 + (byteBuffer.getShort() & 0xffff));
+                    break;
+                case 7: // Class
+                    classNameIndexes[i] = byteBuffer.getShort() & 0xffff;
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    byteBuffer.position(byteBuffer.position() + 2);
+                    break;
+                case 15: // MethodHandle
+                    byteBuffer.position(byteBuffer.position() + 3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    byteBuffer.position(byteBuffer.position() + 4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    byteBuffer.position(byteBuffer.position() + 8);
+                    // takes two constant pool entries
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+        int accessFlags = byteBuffer.getShort() & 0xffff;
+        String name = getClassName(bytes, utf8Offsets, classNameIndexes, byteBuffer.getShort() & 0xffff);
+        String superName = getClassName(bytes, utf8Offsets, classNameIndexes, byteBuffer.getShort() & 0xffff);
+        int interfacesCount = byteBuffer.getShort() & 0xffff;
+        String[] interfaceNames = new String[interfacesCount];
+        for (int i = 0; i < interfacesCount; i++) {
+            interfaceNames[i] = getClassName(bytes, utf8Offsets, classNameIndexes, byteBuffer.getShort() & 0xffff);
+        }
+        return new ClassHeader(name, superName, interfaceNames, accessFlags);
+    }
+
+    // Return the binary name of a class constant, or null for index 0 which is the super class of java.lang.Object
+    private static String getClassName(byte[] bytes, int[] utf8Offsets, int[] classNameIndexes, int classIndex) throws IOException {
+        if (classIndex == 0) {
+            return null;
+        }
+        int utf8Offset = utf8Offsets[classNameIndexes[classIndex]];
+        int length = ((bytes[utf8Offset] & 0xff) << 8) | (bytes[utf8Offset + 1] & 0xff);
+        // class files store modified UTF-8 as read by DataInput
+        String internalName = new DataInputStream(new ByteArrayInputStream(bytes, utf8Offset, length + 2)).readUTF();
+        return internalName.replace('/', '.');
+    }
+
+    public int getClassCount() {
+        return classHeaders.size();
+    }
+
+    public boolean contains(String className) {
+        return classHeaders.containsKey(className);
+    }
+
+    /**
+     * Returns the sorted binary names of all concrete classes on the scanned class path that extend or implement the type, directly or
+     * through other scanned classes. Anonymous and local classes are skipped, they cannot be instantiated when decoding.
+     */
+    public Set<String> getConcreteSubTypes(String typeName) {
+        Set<String> concreteSubTypes = new TreeSet();
+        Set<String> visited = new HashSet();
+        Deque<String> typeNames = new ArrayDeque();
+        typeNames.add(typeName);
+        while (!typeNames.isEmpty()) {
+            List<String> subTypeNames = directSubTypes.get(typeNames.removeFirst());
+            if (Objects.isNull(subTypeNames)) {
+                continue;
+            }
+            for (String subTypeName : subTypeNames) {
+                if (visited.add(subTypeName)) {
+                    typeNames.addLast(subTypeName);
+                    ClassHeader classHeader = classHeaders.get(subTypeName);
+                    if (classHeader.isConcrete() && !isAnonymousOrLocal(subTypeName)) {
+                        concreteSubTypes.add(subTypeName);
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableSet(concreteSubTypes);
+    }
+
+    // Compiler generated names of anonymous and local classes have a digit after the last dollar sign
+    private static boolean isAnonymousOrLocal(String className) {
+        int index = className.lastIndexOf('$');
+        return index >= 0 && index + 1 < className.length() && Character.isDigit(className.charAt(index + 1));
+    }
+
+    static final class ClassHeader {
+
+        final String name;
+        final String superName;
+        final String[] interfaceNames;
+        final int accessFlags;
+
+        ClassHeader(String name, String superName, String[] interfaceNames, int accessFlags) {
+            this.name = name;
+            this.superName = superName;
+            this.interfaceNames = interfaceNames;
+            this.accessFlags = accessFlags;
+        }
+
+        boolean isConcrete() {
+            return (accessFlags & (ACC_INTERFACE | ACC_ABSTRACT)) == 0;
+        }
+
+    }
+
+}
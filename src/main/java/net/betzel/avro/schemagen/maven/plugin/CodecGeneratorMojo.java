@@ -0,0 +1,166 @@
+package net.betzel.avro.schemagen.maven.plugin;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.avro.Schema;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates a reflection free codec, see {@link AvroCodecGenerator}, for every schema written by the schema generator and compiles it into
+ * the class path, next to the root class of the schema.
+ */
+@Mojo(name = "codec-generator", defaultPhase = LifecyclePhase.PROCESS_CLASSES, requiresDependencyResolution = ResolutionScope.COMPILE)
+public final class CodecGeneratorMojo extends AbstractMojo {
+
+    @Parameter(property = "classPath", defaultValue = "${project.build.outputDirectory}", required = true)
+    String classPath;
+    @Parameter(property = "targetSchemaPath", defaultValue = "${project.build.directory}/" + SchemaGeneratorMojo.AVRO_INFO, required = false, readonly = false)
+    String targetSchemaPath;
+    // The codec sources are kept apart from the schemas, these are packaged as resources
+    @Parameter(property = "codecSourcePath", defaultValue = "${project.build.directory}/generated-sources/avro-codecs", required = false, readonly = false)
+    String codecSourcePath;
+    // Compile the generated codecs into the class path, when false only the sources are generated
+    @Parameter(property = "compileCodecs", required = false, defaultValue = "true", readonly = false)
+    boolean compileCodecs;
+    @Parameter(property = "maven.compiler.source", required = false, defaultValue = "1.8", readonly = false)
+    String source;
+    @Parameter(property = "maven.compiler.target", required = false, defaultValue = "1.8", readonly = false)
+    String target;
+    // Package prefixes loaded from the plugin class loader only, in addition to the java., Avro and Maven packages, for example javax.
+    @Parameter(property = "parentFirstPackages", required = false, readonly = false)
+    List<String> parentFirstPackages;
+    @Parameter(defaultValue = "${project}", readonly = true)
+    private MavenProject mavenProject;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        getLog().info("Executing AVRO codec generator Maven plugin");
+        File classPathDir = new File(classPath);
+        File targetSchemaPathDir = new File(targetSchemaPath);
+        if (!classPathDir.isDirectory()) {
+            throw new SchemaGenerationException("Class path directory " + classPath + " is not a directory!");
+        }
+        if (!targetSchemaPathDir.isDirectory()) {
+            getLog().warn("No AVRO schemas found in " + targetSchemaPath + ", run the schema-generator goal first");
+            return;
+        }
+        List<String> loaderParentFirstPackages = new ArrayList(FileClassLoader.DEFAULT_PARENT_FIRST_PACKAGES);
+        if (Objects.nonNull(parentFirstPackages)) {
+            loaderParentFirstPackages.addAll(parentFirstPackages);
+        }
+        long start = System.nanoTime();
+        Set<Path> sourceFiles = new LinkedHashSet();
+        try (FileClassLoader fileClassLoader = new FileClassLoader(Collections.singleton(classPathDir), Thread.currentThread().getContextClassLoader(), loaderParentFirstPackages);
+             DirectoryStream<Path> schemaFiles = Files.newDirectoryStream(targetSchemaPathDir.toPath(), "*.avsc")) {
+            for (Path schemaFile : schemaFiles) {
+                Path sourceFile = generate(fileClassLoader, schemaFile);
+                if (Objects.nonNull(sourceFile)) {
+                    sourceFiles.add(sourceFile);
+                }
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            getLog().error(e);
+            throw new MojoExecutionException(e.getMessage(), e.getCause());
+        }
+        getLog().info("Generated " + sourceFiles.size() + " AVRO codecs in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        if (compileCodecs) {
+            compile(classPathDir, sourceFiles);
+        }
+    }
+
+    // Generate and write the codec source of a schema file named after its root class, returns null for schemas without a root record
+    private Path generate(FileClassLoader fileClassLoader, Path schemaFile) throws IOException, ClassNotFoundException {
+        String fileName = schemaFile.getFileName().toString();
+        String rootClassName = fileName.substring(0, fileName.length() - ".avsc".length());
+        Schema schema = new Schema.Parser().parse(new String(Files.readAllBytes(schemaFile), StandardCharsets.UTF_8));
+        if (schema.getType() != Schema.Type.RECORD) {
+            getLog().info("Skipping AVRO schema " + schemaFile + " of type " + schema.getType());
+            return null;
+        }
+        Class<?> rootClass = fileClassLoader.loadClass(rootClassName);
+        getLog().info("Generating AVRO codec for class " + rootClass.getCanonicalName());
+        AvroCodecGenerator avroCodecGenerator = new AvroCodecGenerator(rootClass, schema);
+        String codecSource = avroCodecGenerator.generate();
+        for (String fallback : avroCodecGenerator.getFallbacks()) {
+            getLog().info("AVRO codec for class " + rootClass.getCanonicalName() + " delegates " + fallback + " to ReflectData");
+        }
+        Path sourceFile = new File(codecSourcePath, avroCodecGenerator.getCodecClassName().replace('.', File.separatorChar) + ".java").toPath();
+        Files.createDirectories(sourceFile.getParent());
+        if (!SchemaGeneratorMojo.writeFileIfChanged(sourceFile, codecSource.getBytes(StandardCharsets.UTF_8))) {
+            getLog().debug("Unchanged " + sourceFile);
+        }
+        return sourceFile;
+    }
+
+    // Compile the codecs whose class file is missing or older than their source
+    private void compile(File classPathDir, Set<Path> sourceFiles) throws MojoExecutionException {
+        List<String> staleSourceFiles = new ArrayList();
+        Path codecSourceDir = new File(codecSourcePath).toPath();
+        try {
+            for (Path sourceFile : sourceFiles) {
+                String relativePath = codecSourceDir.relativize(sourceFile).toString();
+                Path classFile = classPathDir.toPath().resolve(relativePath.substring(0, relativePath.length() - ".java".length()) + ".class");
+                if (!Files.isRegularFile(classFile) || Files.getLastModifiedTime(classFile).compareTo(Files.getLastModifiedTime(sourceFile)) < 0) {
+                    staleSourceFiles.add(sourceFile.toString());
+                }
+            }
+        } catch (IOException e) {
+            getLog().error(e);
+            throw new MojoExecutionException(e.getMessage(), e.getCause());
+        }
+        if (staleSourceFiles.isEmpty()) {
+            getLog().info("AVRO codecs are up to date");
+            return;
+        }
+        JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
+        if (Objects.isNull(javaCompiler)) {
+            throw new MojoExecutionException("No Java compiler available, run Maven with a JDK or set compileCodecs to false");
+        }
+        Set<String> classPathElements = new LinkedHashSet();
+        classPathElements.add(classPathDir.getPath());
+        // the artifacts are resolved for the compile scope, see requiresDependencyResolution
+        for (Object artifact : mavenProject.getArtifacts()) {
+            File artifactFile = ((Artifact) artifact).getFile();
+            if (Objects.nonNull(artifactFile)) {
+                classPathElements.add(artifactFile.getPath());
+            }
+        }
+        // the codecs need Avro and the Jackson types of its signatures, the project may only depend on them at runtime
+        for (Class<?> clazz : new Class<?>[]{Schema.class, JsonNode.class, JsonParser.class}) {
+            classPathElements.add(new File(clazz.getProtectionDomain().getCodeSource().getLocation().getPath()).getPath());
+        }
+        List<String> arguments = new ArrayList();
+        Collections.addAll(arguments, "-nowarn", "-source", source, "-target", target, "-encoding", "UTF-8",
+                "-classpath", String.join(File.pathSeparator, classPathElements), "-d", classPathDir.getPath());
+        arguments.addAll(staleSourceFiles);
+        getLog().info("Compiling " + staleSourceFiles.size() + " AVRO codecs to " + classPathDir);
+        if (javaCompiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+            throw new MojoExecutionException("Compilation of the AVRO codecs failed, see the compiler output");
+        }
+    }
+
+}
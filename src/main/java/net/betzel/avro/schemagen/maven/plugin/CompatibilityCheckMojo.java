@@ -0,0 +1,182 @@
+package net.betzel.avro.schemagen.maven.plugin;
+
+import org.apache.avro.Protocol;
+import org.apache.avro.Schema;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Checks the schemas and protocols written by the schema generator against those of a baseline, a directory or a released jar, and fails
+ * the build on incompatibilities. Files are matched by name, the types of a protocol by their full name. Runs in the same phase as the
+ * schema generator, so it has to be declared after it.
+ */
+@Mojo(name = "compatibility-check", defaultPhase = LifecyclePhase.PROCESS_CLASSES)
+public final class CompatibilityCheckMojo extends AbstractMojo {
+
+    @Parameter(property = "targetSchemaPath", defaultValue = "${project.build.directory}/" + SchemaGeneratorMojo.AVRO_INFO, required = false, readonly = false)
+    String targetSchemaPath;
+    // A directory or a jar with the released schemas, searched recursively
+    @Parameter(property = "baselineSchemaPath", required = false, readonly = false)
+    String baselineSchemaPath;
+    @Parameter(property = "compatibility", required = false, defaultValue = "BACKWARD", readonly = false)
+    SchemaCompatibilityChecker.Compatibility compatibility;
+    @Parameter(property = "failOnIncompatibility", required = false, defaultValue = "true", readonly = false)
+    boolean failOnIncompatibility;
+    // Point the modules of a reactor to the same file to share the results
+    @Parameter(property = "compatibilityCacheFile", defaultValue = "${project.build.directory}/avro-schemagen/compatibility-cache.properties", required = false, readonly = false)
+    String compatibilityCacheFile;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        getLog().info("Executing AVRO compatibility check Maven plugin");
+        if (Objects.isNull(baselineSchemaPath) || baselineSchemaPath.isEmpty()) {
+            getLog().info("No baseline schema path configured, skipping the compatibility check");
+            return;
+        }
+        File targetSchemaPathDir = new File(targetSchemaPath);
+        File baselineSchemaFile = new File(baselineSchemaPath);
+        if (!targetSchemaPathDir.isDirectory()) {
+            getLog().warn("No AVRO schemas found in " + targetSchemaPath + ", run the schema-generator goal first");
+            return;
+        }
+        if (!baselineSchemaFile.exists()) {
+            throw new MojoExecutionException("Baseline schema path " + baselineSchemaPath + " does not exist!");
+        }
+        long start = System.nanoTime();
+        List<String> violations = new ArrayList();
+        int checked = 0;
+        try {
+            Map<String, String> schemaFiles = readSchemaFiles(targetSchemaPathDir.toPath());
+            Map<String, String> baselineSchemaFiles = baselineSchemaFile.isDirectory() ? readSchemaFiles(baselineSchemaFile.toPath()) : readSchemaJar(baselineSchemaFile);
+            SchemaCompatibilityChecker schemaCompatibilityChecker = new SchemaCompatibilityChecker(Paths.get(compatibilityCacheFile));
+            for (String baselineFileName : baselineSchemaFiles.keySet()) {
+                if (!schemaFiles.containsKey(baselineFileName)) {
+                    violations.add(baselineFileName + ": the schema of the baseline is no longer generated");
+                }
+            }
+            for (Map.Entry<String, String> schemaFile : schemaFiles.entrySet()) {
+                String baselineJson = baselineSchemaFiles.get(schemaFile.getKey());
+                if (Objects.isNull(baselineJson)) {
+                    getLog().info("AVRO schema " + schemaFile.getKey() + " is new, it has no baseline");
+                    continue;
+                }
+                if (baselineJson.equals(schemaFile.getValue())) {
+                    // unchanged, not even parsed
+                    checked++;
+                    continue;
+                }
+                Map<String, Schema> schemas = parse(schemaFile.getKey(), schemaFile.getValue());
+                Map<String, Schema> baselineSchemas = parse(schemaFile.getKey(), baselineJson);
+                for (Map.Entry<String, Schema> baselineSchema : baselineSchemas.entrySet()) {
+                    Schema schema = schemas.get(baselineSchema.getKey());
+                    if (Objects.isNull(schema)) {
+                        violations.add(schemaFile.getKey() + ": type " + baselineSchema.getKey() + " was removed");
+                        continue;
+                    }
+                    checked++;
+                    for (String incompatibility : schemaCompatibilityChecker.check(schema, baselineSchema.getValue(), compatibility)) {
+                        violations.add(schemaFile.getKey() + ": " + baselineSchema.getKey() + " " + incompatibility);
+                    }
+                }
+            }
+            schemaCompatibilityChecker.save();
+            getLog().info("Checked " + checked + " AVRO schemas for " + compatibility + " compatibility, resolved " + schemaCompatibilityChecker.getResolvedPairs()
+                    + " uncached schema pairs in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } catch (IOException e) {
+            getLog().error(e);
+            throw new MojoExecutionException(e.getMessage(), e.getCause());
+        }
+        if (violations.isEmpty()) {
+            return;
+        }
+        for (String violation : violations) {
+            getLog().error(violation);
+        }
+        if (failOnIncompatibility) {
+            throw new MojoFailureException(violations.size() + " AVRO schema incompatibilities with baseline " + baselineSchemaPath + ", see the log");
+        }
+    }
+
+    // Return the root schema of a schema file, or the types of a protocol file, by full name
+    private static Map<String, Schema> parse(String fileName, String json) {
+        Map<String, Schema> schemas = new TreeMap();
+        if (fileName.endsWith(".avpr")) {
+            for (Schema schema : Protocol.parse(json).getTypes()) {
+                schemas.put(schema.getFullName(), schema);
+            }
+        } else {
+            Schema schema = new Schema.Parser().parse(json);
+            schemas.put(schema.getFullName(), schema);
+        }
+        return schemas;
+    }
+
+    private static boolean isSchemaFile(String fileName) {
+        return fileName.endsWith(".avsc") || fileName.endsWith(".avpr");
+    }
+
+    private static Map<String, String> readSchemaFiles(Path directory) throws IOException {
+        Map<String, String> schemaFiles = new TreeMap();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String fileName = path.getFileName().toString();
+                if (isSchemaFile(fileName) && Files.isRegularFile(path)) {
+                    schemaFiles.put(fileName, new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return schemaFiles;
+    }
+
+    private static Map<String, String> readSchemaJar(File jarFile) throws IOException {
+        Map<String, String> schemaFiles = new TreeMap();
+        try (ZipFile zipFile = new ZipFile(jarFile)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String fileName = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                if (entry.isDirectory() || !isSchemaFile(fileName)) {
+                    continue;
+                }
+                try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                    schemaFiles.put(fileName, new String(readAllBytes(inputStream), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return schemaFiles;
+    }
+
+    private static byte[] readAllBytes(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while (-1 != (n = inputStream.read(buffer))) {
+            byteArrayOutputStream.write(buffer, 0, n);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+}
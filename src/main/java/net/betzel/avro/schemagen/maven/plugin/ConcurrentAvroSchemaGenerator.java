@@ -0,0 +1,79 @@
+package net.betzel.avro.schemagen.maven.plugin;
+
+import org.apache.avro.Protocol;
+import org.apache.avro.Schema;
+import org.apache.avro.reflect.ReflectData;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread safe {@link SchemaGenerator} for generating many root classes in parallel. The declarations of the given generator are
+ * frozen, each generation runs on a fork of it, while the reflect data and all completed record schemas are shared by the forks.
+ */
+public final class ConcurrentAvroSchemaGenerator implements SchemaGenerator {
+
+    private final AvroSchemaGenerator avroSchemaGenerator;
+    private final ConcurrentMap<String, Schema> sharedRecords = new ConcurrentHashMap();
+    private final LongAdder createdRecords = new LongAdder();
+    private final LongAdder completedRecords = new LongAdder();
+    private final LongAdder reusedRecords = new LongAdder();
+
+    public ConcurrentAvroSchemaGenerator(AvroSchemaGenerator avroSchemaGenerator) {
+        avroSchemaGenerator.freeze();
+        this.avroSchemaGenerator = avroSchemaGenerator;
+    }
+
+    @Override
+    public Schema generateSchema(Class clazz) {
+        AvroSchemaGenerator fork = avroSchemaGenerator.fork(sharedRecords);
+        try {
+            return fork.generateSchema(clazz);
+        } finally {
+            count(fork);
+        }
+    }
+
+    @Override
+    public Protocol generateProtocol(Class clazz) {
+        AvroSchemaGenerator fork = avroSchemaGenerator.fork(sharedRecords);
+        try {
+            return fork.generateProtocol(clazz);
+        } finally {
+            count(fork);
+        }
+    }
+
+    private void count(AvroSchemaGenerator fork) {
+        createdRecords.add(fork.getCreatedRecords());
+        completedRecords.add(fork.getCompletedRecords());
+        reusedRecords.add(fork.getReusedRecords());
+    }
+
+    @Override
+    public ReflectData getReflectData() {
+        return avroSchemaGenerator.getReflectData();
+    }
+
+    @Override
+    public long getCreatedRecords() {
+        return createdRecords.sum();
+    }
+
+    @Override
+    public long getCompletedRecords() {
+        return completedRecords.sum();
+    }
+
+    @Override
+    public long getReusedRecords() {
+        return reusedRecords.sum();
+    }
+
+    // The number of completed record schemas shared between the forks
+    public int getSharedRecords() {
+        return sharedRecords.size();
+    }
+
+}
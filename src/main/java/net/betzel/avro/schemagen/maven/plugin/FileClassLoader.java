@@ -9,6 +9,7 @@ import java.io.FileInputStream;
 import java.io.FilePermission;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.JarURLConnection;
 import java.net.MalformedURLException;
 import java.net.SocketPermission;
@@ -21,6 +22,11 @@ import java.nio.CharBuffer;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.AccessControlContext;
 import java.security.AccessController;
 import java.security.CodeSigner;
@@ -34,11 +40,16 @@ import java.security.PrivilegedExceptionAction;
 import java.security.ProtectionDomain;
 import java.security.SecureClassLoader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.Attributes;
 import java.util.jar.Attributes.Name;
 import java.util.jar.JarEntry;
@@ -51,18 +62,33 @@ import static java.util.jar.JarFile.MANIFEST_NAME;
 /**
  * This implements {@link SecureClassLoader} and creates its class path over a given collection of jarFiles or directories.
  * This implements also {@link Closeable}.
+ * The loader is registered as parallel capable, class loading locks per class name instead of on the loader instance.
+ * All class path entries are indexed by resource name on first lookup, the class path is expected not to change afterwards.
+ * Classes of the parent first packages are delegated to the parent directly, class names missing on the class path are remembered.
  */
 public final class FileClassLoader extends SecureClassLoader implements Closeable {
 
     private static final String FILE_READ_ACTION = "read";
     private static final String SOCKET_CONNECT_ACCEPT_ACTION = "connect,accept";
 
+    // Packages owned by the JDK and the plugin runtime, which are never looked up on the class path. Other JDK namespaces such as javax.
+    // and com.sun. are also shipped by project dependencies, these stay child first unless configured as parent first packages
+    public static final List<String> DEFAULT_PARENT_FIRST_PACKAGES = Collections.unmodifiableList(Arrays.asList(
+            "java.", "jdk.", "sun.", "org.apache.avro.", "org.apache.maven.", "org.codehaus.plexus.", "org.slf4j."));
+
     private final AccessControlContext accessControlContext = AccessController.getContext();
     private final Collection<JarFile> jarFiles;
     private final Collection<File> directories;
+    private final String[] parentFirstPackages;
+    private final Set<String> missedClassNames = Collections.newSetFromMap(new ConcurrentHashMap());
 
+    private volatile Map<String, List<Resource>> entryIndex;
     private volatile boolean closed;
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     public FileClassLoader(File classPath) throws IOException {
         this(Collections.singleton(classPath), null);
     }
@@ -76,8 +102,19 @@ public final class FileClassLoader extends SecureClassLoader implements Closeabl
     }
 
     public FileClassLoader(Iterable<File> classPath, ClassLoader parent) throws IOException {
+        this(classPath, parent, DEFAULT_PARENT_FIRST_PACKAGES);
+    }
+
+    /**
+     * @param classPath           the directories and jar files to load classes from
+     * @param parent              the parent class loader
+     * @param parentFirstPackages the package prefixes, like "org.apache.avro.", to load from the parent class loader only
+     */
+    public FileClassLoader(Iterable<File> classPath, ClassLoader parent, Collection<String> parentFirstPackages) throws IOException {
         super(parent);
         Objects.requireNonNull(classPath, "The parameter files is missing");
+        Objects.requireNonNull(parentFirstPackages, "The parameter parentFirstPackages is missing");
+        this.parentFirstPackages = parentFirstPackages.toArray(new String[0]);
         Collection<JarFile> jarFiles = new ArrayList();
         Collection<File> directories = new ArrayList();
         for (File classPathPart : classPath) {
@@ -176,9 +213,8 @@ public final class FileClassLoader extends SecureClassLoader implements Closeabl
 
             @Override
             public URL nextElement() {
-                if (local && Objects.isNull(localResources.nextElement())) {
-                    local = false;
-                }
+                // switches over to the global resources once the local ones are exhausted
+                hasMoreElements();
                 return local ? localResources.nextElement() : globalResources.nextElement();
             }
         };
@@ -199,66 +235,62 @@ public final class FileClassLoader extends SecureClassLoader implements Closeabl
     }
 
     @Override
-    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
-        Class<?> result = findLoadedClass(name);
-        if (Objects.isNull(result)) {
-            try {
-                result = findClass(name);
-            } catch (ClassNotFoundException ignored) {
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> result = findLoadedClass(name);
+            if (Objects.isNull(result) && !isParentFirst(name) && !missedClassNames.contains(name)) {
+                result = findLocalClass(name);
+                if (Objects.isNull(result)) {
+                    missedClassNames.add(name);
+                }
+            }
+            if (Objects.isNull(result)) {
                 ClassLoader parent = getParent();
-                if (Objects.nonNull(parent)) {
-                    result = parent.loadClass(name);
+                if (Objects.isNull(parent)) {
+                    throw new ClassNotFoundException(name);
                 }
+                result = parent.loadClass(name);
             }
+            if (resolve) {
+                resolveClass(result);
+            }
+            return result;
         }
-        if (resolve) {
-            resolveClass(result);
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        Class<?> result = findLocalClass(name);
+        if (Objects.isNull(result)) {
+            throw new ClassNotFoundException(name);
         }
         return result;
     }
 
-    @Override
-    protected synchronized Class<?> findClass(String name) throws ClassNotFoundException {
+    // Define the class from the class path, or return null if the class path does not contain it
+    private Class<?> findLocalClass(String name) {
         ensureNotClosed();
         try {
             return doPrivileged(new PrivilegedExceptionAction<Class<?>>() {
                 @Override
                 public Class<?> run() throws Exception {
-                    Class<?> result;
-                    result = null;
                     String path = name.replace('.', '/').concat(".class");
-                    Iterator<File> i = directories.iterator();
-                    while (Objects.isNull(result) && i.hasNext()) {
-                        File directory = i.next();
-                        File file = new File(directory, path);
-                        if (file.isFile()) {
-                            result = defineClass(name, new DirectoryResource(directory, file));
-                        }
-                    }
-                    if (Objects.isNull(result)) {
-                        Iterator<JarFile> j = jarFiles.iterator();
-                        while (Objects.isNull(result) && j.hasNext()) {
-                            JarFile jarFile = j.next();
-                            JarEntry jarEntry = jarFile.getJarEntry(path);
-                            if (jarEntry != null) {
-                                result = defineClass(name, new JarResource(jarFile, jarEntry));
-                            }
-                        }
-                    }
-                    if (Objects.isNull(result)) {
-                        throw new ClassNotFoundException(name);
-                    }
-                    return result;
+                    List<Resource> resources = getEntryIndex().get(path);
+                    return Objects.isNull(resources) ? null : defineClass(name, resources.get(0));
                 }
             }, accessControlContext);
         } catch (PrivilegedActionException e) {
-            Exception exception = e.getException();
-            if (exception instanceof ClassNotFoundException) {
-                throw (ClassNotFoundException) exception;
-            } else {
-                throw new RuntimeException(e);
+            throw new RuntimeException(e.getException());
+        }
+    }
+
+    private boolean isParentFirst(String name) {
+        for (String parentFirstPackage : parentFirstPackages) {
+            if (name.startsWith(parentFirstPackage)) {
+                return true;
             }
         }
+        return false;
     }
 
     private Class<?> defineClass(String name, Resource resource) throws IOException {
@@ -285,10 +317,17 @@ public final class FileClassLoader extends SecureClassLoader implements Closeabl
                     }
                 }
             } else {
-                if (man != null) {
-                    definePackage(packageName, man, packageUrl);
-                } else {
-                    definePackage(packageName, null, null, null, null, null, null, null);
+                try {
+                    if (man != null) {
+                        definePackage(packageName, man, packageUrl);
+                    } else {
+                        definePackage(packageName, null, null, null, null, null, null, null);
+                    }
+                } catch (IllegalArgumentException e) {
+                    // Another thread may have defined the package in parallel
+                    if (getPackage(packageName) == null) {
+                        throw e;
+                    }
                 }
             }
         }
@@ -306,53 +345,30 @@ public final class FileClassLoader extends SecureClassLoader implements Closeabl
     }
 
     @Override
-    protected synchronized URL findResource(String name) {
+    protected URL findResource(String name) {
         ensureNotClosed();
         return doPrivileged(new PrivilegedAction<URL>() {
             @Override
             public URL run() {
-                URL result = null;
-                Iterator<File> i = directories.iterator();
-                while (Objects.isNull(result) && i.hasNext()) {
-                    File directory = i.next();
-                    File file = new File(directory, name);
-                    if (file.isFile()) {
-                        result = new DirectoryResource(directory, file).getResourceUrl();
-                    }
-                }
-                if (Objects.isNull(result)) {
-                    Iterator<JarFile> j = jarFiles.iterator();
-                    while (result == null && j.hasNext()) {
-                        JarFile jarFile = j.next();
-                        JarEntry jarEntry = jarFile.getJarEntry(name);
-                        if (jarEntry != null) {
-                            result = new JarResource(jarFile, jarEntry).getResourceUrl();
-                        }
-                    }
-                }
-                return result;
+                List<Resource> resources = getEntryIndex().get(name);
+                return Objects.isNull(resources) ? null : resources.get(0).getResourceUrl();
             }
         }, accessControlContext);
     }
 
     @Override
-    protected synchronized Enumeration<URL> findResources(String name) throws IOException {
+    protected Enumeration<URL> findResources(String name) throws IOException {
         ensureNotClosed();
         Iterable<URL> iterable = doPrivileged(new PrivilegedAction<Iterable<URL>>() {
             @Override
             public Iterable<URL> run() {
-                Collection<URL> result = new ArrayList<URL>();
-                for (File directory : directories) {
-                    File file = new File(directory, name);
-                    if (file.isFile()) {
-                        result.add(new DirectoryResource(directory, file).getResourceUrl());
-                    }
+                List<Resource> resources = getEntryIndex().get(name);
+                if (Objects.isNull(resources)) {
+                    return Collections.emptyList();
                 }
-                for (JarFile jarFile : jarFiles) {
-                    JarEntry jarEntry = jarFile.getJarEntry(name);
-                    if (jarEntry != null) {
-                        result.add(new JarResource(jarFile, jarEntry).getResourceUrl());
-                    }
+                Collection<URL> result = new ArrayList<URL>(resources.size());
+                for (Resource resource : resources) {
+                    result.add(resource.getResourceUrl());
                 }
                 return result;
             }
@@ -361,7 +377,69 @@ public final class FileClassLoader extends SecureClassLoader implements Closeabl
         return new IteratorEnumeration(iterable.iterator());
     }
 
-    private synchronized void ensureNotClosed() {
+    /**
+     * Returns the index of all class path entries by resource name, directories first and jar files second, both in class path order.
+     * The index is built on first use with a single walk over all directories and jar files.
+     */
+    private Map<String, List<Resource>> getEntryIndex() {
+        Map<String, List<Resource>> result = entryIndex;
+        if (Objects.isNull(result)) {
+            synchronized (this) {
+                result = entryIndex;
+                if (Objects.isNull(result)) {
+                    result = buildEntryIndex();
+                    entryIndex = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<String, List<Resource>> buildEntryIndex() {
+        Map<String, List<Resource>> result = new HashMap();
+        for (File directory : directories) {
+            Path directoryPath = directory.toPath();
+            try {
+                Files.walkFileTree(directoryPath, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isRegularFile()) {
+                            String name = directoryPath.relativize(file).toString().replace(File.separatorChar, '/');
+                            addEntry(result, name, new DirectoryResource(directory, file.toFile()));
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not index directory " + directory + ".", e);
+            }
+        }
+        for (JarFile jarFile : jarFiles) {
+            Enumeration<JarEntry> jarEntries = jarFile.entries();
+            while (jarEntries.hasMoreElements()) {
+                JarEntry jarEntry = jarEntries.nextElement();
+                String name = jarEntry.getName();
+                Resource resource = new JarResource(jarFile, jarEntry);
+                addEntry(result, name, resource);
+                if (jarEntry.isDirectory() && name.endsWith("/")) {
+                    // directory entries are found with and without trailing slash, as JarFile.getJarEntry does
+                    addEntry(result, name.substring(0, name.length() - 1), resource);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addEntry(Map<String, List<Resource>> index, String name, Resource resource) {
+        List<Resource> resources = index.get(name);
+        if (Objects.isNull(resources)) {
+            resources = new ArrayList(1);
+            index.put(name, resources);
+        }
+        resources.add(resource);
+    }
+
+    private void ensureNotClosed() {
         if (closed) {
             throw new IllegalStateException(this + " is already closed.");
         }
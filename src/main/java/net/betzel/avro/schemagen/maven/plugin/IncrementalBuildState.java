@@ -0,0 +1,164 @@
+package net.betzel.avro.schemagen.maven.plugin;
+
+import org.apache.avro.Protocol;
+import org.apache.avro.Schema;
+import org.apache.avro.specific.SpecificData;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The state of an incremental build. For each root class it records a hash of the plugin configuration, the classes reachable from
+ * the schema graph and a hash of the byte code of these classes. A root class is up to date when none of them changed.
+ */
+public final class IncrementalBuildState {
+
+    private static final String CONFIG_SUFFIX = ".config";
+    private static final String CLASSES_SUFFIX = ".classes";
+    private static final String DIGEST_SUFFIX = ".digest";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Path stateFile;
+    private final ClassLoader classLoader;
+    private final Properties properties = new Properties();
+
+    public IncrementalBuildState(Path stateFile, ClassLoader classLoader) throws IOException {
+        this.stateFile = stateFile;
+        this.classLoader = classLoader;
+        if (Files.isRegularFile(stateFile)) {
+            try (InputStream inputStream = Files.newInputStream(stateFile)) {
+                properties.load(inputStream);
+            }
+        }
+    }
+
+    public static String hash(String string) {
+        return toHex(newMessageDigest().digest(string.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Return the names of the root class, the classes of all named schemas reachable from the schemas and their superclasses
+    public static Set<String> getClassClosure(Class<?> rootClass, Iterable<Schema> schemas, ClassLoader classLoader) {
+        Set<String> classNames = new TreeSet();
+        addClassHierarchy(rootClass, classNames);
+        for (Schema rootSchema : schemas) {
+            for (Schema schema : new AvroSchemaIterator(rootSchema)) {
+                switch (schema.getType()) {
+                    case RECORD:
+                    case ENUM:
+                        addClassHierarchy(findClass(SpecificData.getClassName(schema), classLoader), classNames);
+                        break;
+                }
+            }
+        }
+        return classNames;
+    }
+
+    // Return the root schemas of a protocol, its types and its message requests and responses
+    public static Iterable<Schema> getProtocolSchemas(Protocol protocol) {
+        Set<Schema> schemas = new LinkedHashSet(protocol.getTypes());
+        for (Protocol.Message message : protocol.getMessages().values()) {
+            schemas.add(message.getRequest());
+            schemas.add(message.getResponse());
+        }
+        return schemas;
+    }
+
+    // Find the class of a schema name, nested classes are named with dots instead of dollar signs
+    private static Class<?> findClass(String className, ClassLoader classLoader) {
+        StringBuilder stringBuilder = new StringBuilder(className);
+        int index = stringBuilder.length();
+        while (true) {
+            try {
+                return Class.forName(stringBuilder.toString(), false, classLoader);
+            } catch (ClassNotFoundException ignored) {
+                index = stringBuilder.lastIndexOf(".", index - 1);
+                if (index < 0) {
+                    // custom named schemas without a class
+                    return null;
+                }
+                stringBuilder.setCharAt(index, '$');
+            }
+        }
+    }
+
+    private static void addClassHierarchy(Class<?> clazz, Set<String> classNames) {
+        while (Objects.nonNull(clazz) && Objects.nonNull(clazz.getClassLoader())) {
+            // classes of the bootstrap class loader never change within a build
+            classNames.add(clazz.getName());
+            clazz = clazz.getSuperclass();
+        }
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new SchemaGenerationException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    public synchronized boolean isUpToDate(String rootClassName, String configHash, Path outputFile) throws IOException {
+        String classes = properties.getProperty(rootClassName + CLASSES_SUFFIX);
+        if (!Files.isRegularFile(outputFile) || Objects.isNull(classes) || !configHash.equals(properties.getProperty(rootClassName + CONFIG_SUFFIX))) {
+            return false;
+        }
+        Set<String> classNames = new TreeSet(Arrays.asList(classes.split(",")));
+        String digest = digest(classNames, classLoader);
+        return !digest.isEmpty() && digest.equals(properties.getProperty(rootClassName + DIGEST_SUFFIX));
+    }
+
+    public synchronized void update(String rootClassName, String configHash, Set<String> classNames) throws IOException {
+        properties.setProperty(rootClassName + CONFIG_SUFFIX, configHash);
+        properties.setProperty(rootClassName + CLASSES_SUFFIX, String.join(",", classNames));
+        properties.setProperty(rootClassName + DIGEST_SUFFIX, digest(classNames, classLoader));
+    }
+
+    public synchronized void save() throws IOException {
+        Files.createDirectories(stateFile.getParent());
+        try (OutputStream outputStream = Files.newOutputStream(stateFile)) {
+            properties.store(outputStream, "AVRO schema generator incremental build state");
+        }
+    }
+
+    // Hash the byte code of the classes in sorted order, returns an empty string if a class is missing
+    static String digest(Set<String> classNames, ClassLoader classLoader) throws IOException {
+        MessageDigest messageDigest = newMessageDigest();
+        byte[] buffer = new byte[8192];
+        for (String className : classNames) {
+            messageDigest.update(className.getBytes(StandardCharsets.UTF_8));
+            try (InputStream inputStream = classLoader.getResourceAsStream(className.replace('.', '/').concat(".class"))) {
+                if (Objects.isNull(inputStream)) {
+                    // a removed class never matches
+                    return "";
+                }
+                int n;
+                while (-1 != (n = inputStream.read(buffer))) {
+                    messageDigest.update(buffer, 0, n);
+                }
+            }
+        }
+        return toHex(messageDigest.digest());
+    }
+
+}
@@ -0,0 +1,77 @@
+package net.betzel.avro.schemagen.maven.plugin;
+
+import org.apache.avro.Schema;
+import org.apache.avro.specific.SpecificData;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable index of the declared polymorphic types. For each base type, globally and per field binding, it holds the
+ * transitive closure of all declared subtype schemas, so a union for a base type is a single lookup.
+ */
+public final class PolymorphicTypeIndex {
+
+    private final Map<String, Collection<Schema>> globalSubTypes;
+    private final Map<String, Map<String, Collection<Schema>>> fieldSubTypes;
+
+    public PolymorphicTypeIndex(Map<String, Set<Schema>> globalPolymorphicTypeSchemas, Map<String, Map<String, Set<Schema>>> fieldPolymorphicTypeSchemas) {
+        this.globalSubTypes = compile(globalPolymorphicTypeSchemas);
+        Map<String, Map<String, Collection<Schema>>> fieldSubTypes = new HashMap();
+        for (Map.Entry<String, Map<String, Set<Schema>>> entry : fieldPolymorphicTypeSchemas.entrySet()) {
+            fieldSubTypes.put(entry.getKey(), compile(entry.getValue()));
+        }
+        this.fieldSubTypes = Collections.unmodifiableMap(fieldSubTypes);
+    }
+
+    // Expand the direct subtypes of each base type into their transitive closure
+    private static Map<String, Collection<Schema>> compile(Map<String, Set<Schema>> polymorphicTypeSchemas) {
+        Map<String, Collection<Schema>> closures = new HashMap();
+        for (Map.Entry<String, Set<Schema>> entry : polymorphicTypeSchemas.entrySet()) {
+            Set<Schema> closure = new LinkedHashSet();
+            Deque<Schema> subTypes = new ArrayDeque(entry.getValue());
+            while (!subTypes.isEmpty()) {
+                Schema subType = subTypes.removeFirst();
+                if (closure.add(subType) && isNamedType(subType)) {
+                    Set<Schema> subSubTypes = polymorphicTypeSchemas.get(SpecificData.getClassName(subType));
+                    if (Objects.nonNull(subSubTypes)) {
+                        subTypes.addAll(subSubTypes);
+                    }
+                }
+            }
+            closures.put(entry.getKey(), Collections.unmodifiableCollection(closure));
+        }
+        return Collections.unmodifiableMap(closures);
+    }
+
+    private static boolean isNamedType(Schema schema) {
+        switch (schema.getType()) {
+            case RECORD:
+            case ENUM:
+            case FIXED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns all subtypes of the class, bound to the field if the field has bindings and global otherwise, or null if there are none.
+     */
+    public Collection<Schema> getSubTypes(String fieldSymbols, String className) {
+        Map<String, Collection<Schema>> fieldSubTypeMap = fieldSubTypes.get(fieldSymbols);
+        return Objects.isNull(fieldSubTypeMap) ? globalSubTypes.get(className) : fieldSubTypeMap.get(className);
+    }
+
+    public boolean hasFieldBinding(String fieldSymbols) {
+        return fieldSubTypes.containsKey(fieldSymbols);
+    }
+
+}
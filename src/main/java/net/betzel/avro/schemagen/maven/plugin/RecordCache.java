@@ -3,27 +3,38 @@ package net.betzel.avro.schemagen.maven.plugin;
 import org.apache.avro.Schema;
 import org.apache.avro.specific.SpecificData;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
-// A cache of record schemas
+// A cache of record schemas, records created without fields are queued until their fields are set
 public class RecordCache {
 
-    private final Map<String, Schema> cachedRecords;
-    private final Set<String> emptyCachedRecords;
+    private final Map<String, CachedRecord> cachedRecords;
+    private final Deque<CachedRecord> pendingRecords;
+    // Complete records shared with other caches, null if not shared
+    private final ConcurrentMap<String, Schema> sharedRecords;
+    private long createdRecords;
+    private long completedRecords;
+    private long reusedRecords;
 
     public RecordCache() {
-        cachedRecords = new HashMap();
-        emptyCachedRecords = new HashSet();
+        this(null);
+    }
+
+    public RecordCache(ConcurrentMap<String, Schema> sharedRecords) {
+        this.cachedRecords = new HashMap();
+        this.pendingRecords = new ArrayDeque();
+        this.sharedRecords = sharedRecords;
     }
 
     public void clear() {
         cachedRecords.clear();
-        emptyCachedRecords.clear();
+        pendingRecords.clear();
     }
 
     // Create a schema for template
@@ -33,14 +44,20 @@ public class RecordCache {
             throw new SchemaGenerationException(message);
         }
         String fullName = template.getFullName();
-        if (cachedRecords.containsKey(fullName)) {
+        if (Objects.nonNull(lookup(fullName))) {
             String message = String.format("Attempted to cache schema for %s but it already exists", fullName);
             throw new SchemaGenerationException(message);
         }
+        return create(fullName, template).schema;
+    }
+
+    private CachedRecord create(String fullName, Schema template) {
         Schema newSchema = Schema.createRecord(template.getName(), template.getDoc(), template.getNamespace(), template.isError());
-        cachedRecords.put(fullName, newSchema);
-        emptyCachedRecords.add(SpecificData.getClassName(template));
-        return newSchema;
+        CachedRecord cachedRecord = new CachedRecord(newSchema, SpecificData.getClassName(template));
+        cachedRecords.put(fullName, cachedRecord);
+        pendingRecords.addLast(cachedRecord);
+        createdRecords++;
+        return cachedRecord;
     }
 
     public Schema get(Schema schema) {
@@ -48,29 +65,39 @@ public class RecordCache {
     }
 
     public Schema get(String fullName) {
-        return cachedRecords.get(fullName);
+        CachedRecord cachedRecord = lookup(fullName);
+        return Objects.isNull(cachedRecord) ? null : cachedRecord.schema;
     }
 
     // Get a schema for s or create it
     public Schema getOrCreate(Schema schema) {
-        Schema newSchema = get(schema);
-        if (Objects.isNull(newSchema)) {
-            newSchema = create(schema);
+        String fullName = schema.getFullName();
+        CachedRecord cachedRecord = lookup(fullName);
+        if (Objects.isNull(cachedRecord)) {
+            return create(schema);
         }
-        return newSchema;
+        reusedRecords++;
+        return cachedRecord.schema;
     }
 
     // Set the fields for the schema
     public Schema set(Schema schema, List<Schema.Field> fields) {
-        String fullName = SpecificData.getClassName(schema);
-        Schema newSchema = getOrCreate(schema);
-        if (!emptyCachedRecords.contains(fullName)) {
+        String fullName = schema.getFullName();
+        CachedRecord cachedRecord = lookup(fullName);
+        if (Objects.isNull(cachedRecord)) {
+            create(schema);
+            cachedRecord = cachedRecords.get(fullName);
+        } else if (cachedRecord.adopted) {
+            // another cache completed the record first, the fields computed here are equal
+            return cachedRecord.schema;
+        } else if (cachedRecord.fieldsSet) {
             String errMsg = "Fields have already been set for " + fullName;
             throw new SchemaGenerationException(errMsg);
         }
-        newSchema.setFields(fields);
-        emptyCachedRecords.remove(fullName);
-        return newSchema;
+        cachedRecord.schema.setFields(fields);
+        cachedRecord.fieldsSet = true;
+        completedRecords++;
+        return cachedRecord.schema;
     }
 
     // Return whether fields are set for s
@@ -79,13 +106,81 @@ public class RecordCache {
     }
 
     public boolean isComplete(String fullName) {
-        return cachedRecords.containsKey(fullName) && (!emptyCachedRecords.contains(fullName));
+        CachedRecord cachedRecord = lookup(fullName);
+        return Objects.nonNull(cachedRecord) && cachedRecord.fieldsSet;
     }
 
-    public String getSchemaWithoutFields() {
-        for (String string : emptyCachedRecords) {
-            return string;
+    // Take the class name of the first queued record which fields are not set yet, in creation order
+    public String pollSchemaWithoutFields() {
+        CachedRecord cachedRecord;
+        while (Objects.nonNull(cachedRecord = pendingRecords.pollFirst())) {
+            if (!cachedRecord.fieldsSet) {
+                return cachedRecord.className;
+            }
         }
         return null;
     }
+
+    // Look up a record of this cache, or adopt a complete record shared by another cache
+    private CachedRecord lookup(String fullName) {
+        CachedRecord cachedRecord = cachedRecords.get(fullName);
+        if (Objects.isNull(cachedRecord) && Objects.nonNull(sharedRecords)) {
+            Schema sharedRecord = sharedRecords.get(fullName);
+            if (Objects.nonNull(sharedRecord)) {
+                // adopted records are never pending, their class name is not needed
+                cachedRecord = new CachedRecord(sharedRecord, null);
+                cachedRecord.fieldsSet = true;
+                cachedRecord.published = true;
+                cachedRecord.adopted = true;
+                cachedRecords.put(fullName, cachedRecord);
+            }
+        }
+        return cachedRecord;
+    }
+
+    // Share the complete records, only valid when no record is pending since shared records must not reference incomplete ones
+    public void publish() {
+        if (Objects.isNull(sharedRecords)) {
+            return;
+        }
+        if (!pendingRecords.isEmpty()) {
+            throw new SchemaGenerationException("Attempted to share records while records are pending");
+        }
+        for (Map.Entry<String, CachedRecord> entry : cachedRecords.entrySet()) {
+            CachedRecord cachedRecord = entry.getValue();
+            if (!cachedRecord.published) {
+                sharedRecords.putIfAbsent(entry.getKey(), cachedRecord.schema);
+                cachedRecord.published = true;
+            }
+        }
+    }
+
+    public long getCreatedRecords() {
+        return createdRecords;
+    }
+
+    public long getCompletedRecords() {
+        return completedRecords;
+    }
+
+    public long getReusedRecords() {
+        return reusedRecords;
+    }
+
+    private static final class CachedRecord {
+
+        private final Schema schema;
+        // Computed once, the class name is needed to resolve the fields of pending records
+        private final String className;
+        private boolean fieldsSet;
+        private boolean published;
+        private boolean adopted;
+
+        private CachedRecord(Schema schema, String className) {
+            this.schema = schema;
+            this.className = className;
+        }
+
+    }
+
 }
@@ -3,42 +3,69 @@ package net.betzel.avro.schemagen.maven.plugin;
 import org.apache.avro.util.ClassUtils;
 import org.codehaus.plexus.util.StringUtils;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public final class ReflectionUtils {
 
+    private static final ClassValue<FieldHierarchy> FIELD_HIERARCHIES = new ClassValue<FieldHierarchy>() {
+        @Override
+        protected FieldHierarchy computeValue(Class<?> type) {
+            return new FieldHierarchy(type);
+        }
+    };
+    // Field accessors per class by field name, resolved on first use
+    private static final ClassValue<ConcurrentMap<String, FieldAccessor>> FIELD_ACCESSORS = new ClassValue<ConcurrentMap<String, FieldAccessor>>() {
+        @Override
+        protected ConcurrentMap<String, FieldAccessor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap();
+        }
+    };
+    // Setters per class by method name, the first one of Class#getMethods wins
+    private static final ClassValue<Map<String, Method>> SETTERS = new ClassValue<Map<String, Method>>() {
+        @Override
+        protected Map<String, Method> computeValue(Class<?> type) {
+            Map<String, Method> setters = new HashMap();
+            for (Method method : type.getMethods()) {
+                if (isSetter(method)) {
+                    setters.putIfAbsent(method.getName(), method);
+                }
+            }
+            return Collections.unmodifiableMap(setters);
+        }
+    };
+
     // ----------------------------------------------------------------------
     // Field utils
     // ----------------------------------------------------------------------
 
     public static Field getFieldByNameIncludingSuperclasses(String fieldName, Class<?> clazz) {
-        Field result = null;
-        try {
-            result = clazz.getDeclaredField(fieldName);
-        } catch (NoSuchFieldException e) {
-            Class<?> superclass = clazz.getSuperclass();
-            if (superclass != null) {
-                result = getFieldByNameIncludingSuperclasses(fieldName, superclass);
-            }
-        }
-        return result;
+        return FIELD_HIERARCHIES.get(clazz).getField(fieldName);
     }
 
     public static List<Field> getFieldsIncludingSuperclasses(Class<?> clazz) {
-        List<Field> fields = new ArrayList(Arrays.asList(clazz.getDeclaredFields()));
-        Class<?> superclass = clazz.getSuperclass();
-        if (superclass != null) {
-            fields.addAll(getFieldsIncludingSuperclasses(superclass));
-        }
-        return fields;
+        return new ArrayList(FIELD_HIERARCHIES.get(clazz).getFields());
+    }
+
+    /**
+     * Returns the cached fields of the class and its superclasses.
+     */
+    public static FieldHierarchy getFieldHierarchy(Class<?> clazz) {
+        return FIELD_HIERARCHIES.get(clazz);
     }
 
     // ----------------------------------------------------------------------
@@ -53,14 +80,7 @@ public final class ReflectionUtils {
      * @return null or the method found.
      */
     public static Method getSetter(String fieldName, Class<?> clazz) {
-        Method[] methods = clazz.getMethods();
-        fieldName = "set" + StringUtils.capitalizeFirstLetter(fieldName);
-        for (Method method : methods) {
-            if (method.getName().equals(fieldName) && isSetter(method)) {
-                return method;
-            }
-        }
-        return null;
+        return SETTERS.get(clazz).get("set" + StringUtils.capitalizeFirstLetter(fieldName));
     }
 
     /**
@@ -100,9 +120,7 @@ public final class ReflectionUtils {
      * @throws IllegalAccessException
      */
     public static void setVariableValueInObject(Object object, String variable, Object value) throws IllegalAccessException {
-        Field field = getFieldByNameIncludingSuperclasses(variable, object.getClass());
-        field.setAccessible(true);
-        field.set(object, value);
+        getRequiredFieldAccessor(variable, object.getClass()).set(object, value);
     }
 
     /**
@@ -112,9 +130,25 @@ public final class ReflectionUtils {
      * @return map containing the fields and their values
      */
     public static Object getValueIncludingSuperclasses(String variable, Object object) throws IllegalAccessException {
-        Field field = getFieldByNameIncludingSuperclasses(variable, object.getClass());
-        field.setAccessible(true);
-        return field.get(object);
+        return getRequiredFieldAccessor(variable, object.getClass()).get(object);
+    }
+
+    /**
+     * Returns the cached accessor of the field with the given name in the class or its superclasses, or null if there is no such field.
+     */
+    public static FieldAccessor getFieldAccessor(String fieldName, Class<?> clazz) {
+        return FIELD_ACCESSORS.get(clazz).computeIfAbsent(fieldName, name -> {
+            Field field = getFieldByNameIncludingSuperclasses(name, clazz);
+            return Objects.isNull(field) ? null : new FieldAccessor(field);
+        });
+    }
+
+    private static FieldAccessor getRequiredFieldAccessor(String fieldName, Class<?> clazz) {
+        FieldAccessor fieldAccessor = getFieldAccessor(fieldName, clazz);
+        if (Objects.isNull(fieldAccessor)) {
+            throw new IllegalArgumentException("Field " + fieldName + " not found in class " + clazz.getName() + " or its superclasses");
+        }
+        return fieldAccessor;
     }
 
     /**
@@ -161,4 +195,179 @@ public final class ReflectionUtils {
         return true;
     }
 
+    /**
+     * The fields declared by a class and its superclasses, by name and by name qualified with the name of the declaring class.
+     */
+    public static final class FieldHierarchy {
+
+        private final List<Field> fields;
+        // A field hides the fields of the same name in its superclasses
+        private final Map<String, Field> fieldsByName = new HashMap();
+        private final Map<String, Field> fieldsByQualifiedName = new HashMap();
+
+        private FieldHierarchy(Class<?> clazz) {
+            List<Field> hierarchyFields = new ArrayList();
+            for (Class<?> c = clazz; Objects.nonNull(c); c = c.getSuperclass()) {
+                hierarchyFields.addAll(Arrays.asList(c.getDeclaredFields()));
+            }
+            for (Field field : hierarchyFields) {
+                fieldsByName.putIfAbsent(field.getName(), field);
+                fieldsByQualifiedName.put(field.getDeclaringClass().getName() + "." + field.getName(), field);
+            }
+            this.fields = Collections.unmodifiableList(hierarchyFields);
+        }
+
+        /**
+         * Returns the fields of the class followed by those of its superclasses.
+         */
+        public List<Field> getFields() {
+            return fields;
+        }
+
+        public Field getField(String fieldName) {
+            return fieldsByName.get(fieldName);
+        }
+
+        /**
+         * @param qualifiedFieldName the binary name of the declaring class and the field name, like com.acme.Base.field
+         */
+        public Field getQualifiedField(String qualifiedFieldName) {
+            return fieldsByQualifiedName.get(qualifiedFieldName);
+        }
+
+    }
+
+    /**
+     * Reads and writes a field through method handles, resolved once. The int and long variants do not box the value.
+     */
+    public static final class FieldAccessor {
+
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final Field field;
+        private final MethodHandle getter;
+        // null for static final fields, these cannot be set
+        private final MethodHandle setter;
+        private final MethodHandle intGetter;
+        private final MethodHandle intSetter;
+        private final MethodHandle longGetter;
+        private final MethodHandle longSetter;
+
+        private FieldAccessor(Field field) {
+            this.field = field;
+            field.setAccessible(true);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            boolean isStatic = Modifier.isStatic(field.getModifiers());
+            try {
+                MethodHandle fieldGetter = lookup.unreflectGetter(field);
+                MethodHandle fieldSetter = isStatic && Modifier.isFinal(field.getModifiers()) ? null : lookup.unreflectSetter(field);
+                // static fields ignore the object, like Field#get and Field#set do
+                if (isStatic) {
+                    fieldGetter = MethodHandles.dropArguments(fieldGetter, 0, Object.class);
+                    fieldSetter = Objects.isNull(fieldSetter) ? null : MethodHandles.dropArguments(fieldSetter, 0, Object.class);
+                }
+                this.getter = fieldGetter.asType(GETTER_TYPE);
+                this.setter = Objects.isNull(fieldSetter) ? null : fieldSetter.asType(SETTER_TYPE);
+                boolean isInt = field.getType() == int.class;
+                boolean isLong = field.getType() == long.class;
+                this.intGetter = isInt ? fieldGetter.asType(MethodType.methodType(int.class, Object.class)) : null;
+                this.intSetter = isInt && Objects.nonNull(fieldSetter) ? fieldSetter.asType(MethodType.methodType(void.class, Object.class, int.class)) : null;
+                this.longGetter = isLong ? fieldGetter.asType(MethodType.methodType(long.class, Object.class)) : null;
+                this.longSetter = isLong && Objects.nonNull(fieldSetter) ? fieldSetter.asType(MethodType.methodType(void.class, Object.class, long.class)) : null;
+            } catch (IllegalAccessException e) {
+                throw new SchemaGenerationException("Cannot access field " + field.getName() + " of class " + field.getDeclaringClass().getName(), e);
+            }
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        public Object get(Object object) {
+            try {
+                return (Object) getter.invokeExact(object);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        public void set(Object object, Object value) throws IllegalAccessException {
+            checkSettable(setter);
+            // unboxing null would fail with a NullPointerException, Field.set rejects it as an illegal argument
+            if (Objects.isNull(value) && field.getType().isPrimitive()) {
+                throw new IllegalArgumentException("Cannot set field " + field.getName() + " of type " + field.getType().getName() + " to null");
+            }
+            try {
+                setter.invokeExact(object, value);
+            } catch (ClassCastException e) {
+                throw new IllegalArgumentException("Cannot set field " + field.getName() + " of type " + field.getType().getName() + " to " + value.getClass().getName(), e);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        public int getInt(Object object) {
+            checkType(intGetter, int.class);
+            try {
+                return (int) intGetter.invokeExact(object);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        public void setInt(Object object, int value) throws IllegalAccessException {
+            checkType(intGetter, int.class);
+            checkSettable(intSetter);
+            try {
+                intSetter.invokeExact(object, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        public long getLong(Object object) {
+            checkType(longGetter, long.class);
+            try {
+                return (long) longGetter.invokeExact(object);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        public void setLong(Object object, long value) throws IllegalAccessException {
+            checkType(longGetter, long.class);
+            checkSettable(longSetter);
+            try {
+                longSetter.invokeExact(object, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        private void checkType(MethodHandle methodHandle, Class<?> type) {
+            if (Objects.isNull(methodHandle)) {
+                throw new IllegalArgumentException("Field " + field.getName() + " of class " + field.getDeclaringClass().getName() + " is no " + type.getName());
+            }
+        }
+
+        private void checkSettable(MethodHandle methodHandle) throws IllegalAccessException {
+            if (Objects.isNull(methodHandle)) {
+                throw new IllegalAccessException("Field " + field.getName() + " of class " + field.getDeclaringClass().getName() + " is static final");
+            }
+        }
+
+        // Method handles throw what the field access throws, a null object for instance
+        private static RuntimeException rethrow(Throwable t) {
+            if (t instanceof RuntimeException) {
+                return (RuntimeException) t;
+            }
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            return new SchemaGenerationException(t);
+        }
+
+    }
+
 }
\ No newline at end of file
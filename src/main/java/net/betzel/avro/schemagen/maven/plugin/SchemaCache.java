@@ -0,0 +1,120 @@
+package net.betzel.avro.schemagen.maven.plugin;
+
+import org.apache.avro.Schema;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A persistent, content addressed cache of generated schemas and protocols, shared by builds and by the modules of a reactor.
+ * Entries of a root class are grouped under a hash of the Avro version, the plugin version, the generator configuration and the root class
+ * name. Each entry is stored under the hash of the byte code of the classes of its schema graph, so it is found again as long as none of
+ * them changed. A snapshot of the plugin is identified by its version only. Entries are never evicted, outdated entries are left in the
+ * directory until it is cleaned.
+ */
+public final class SchemaCache {
+
+    private static final String CLASSES_SUFFIX = ".classes";
+    private static final String SCHEMA_SUFFIX = ".json";
+
+    private final Path directory;
+    private final ClassLoader classLoader;
+    private final String pluginVersion;
+
+    /**
+     * @param pluginVersion the version of the plugin generating the schemas, entries of other versions are not found
+     */
+    public SchemaCache(Path directory, ClassLoader classLoader, String pluginVersion) {
+        this.directory = directory;
+        this.classLoader = classLoader;
+        this.pluginVersion = pluginVersion;
+    }
+
+    private Path getRootDirectory(String rootClassName, String configHash) {
+        String avroVersion = Schema.class.getPackage().getImplementationVersion();
+        return directory.resolve(IncrementalBuildState.hash(avroVersion + "|" + pluginVersion + "|" + configHash + "|" + rootClassName));
+    }
+
+    /**
+     * Returns the cached schema or protocol of the root class, or null if there is none for the current byte code of its classes.
+     */
+    public Entry get(String rootClassName, String configHash) throws IOException {
+        Path rootDirectory = getRootDirectory(rootClassName, configHash);
+        if (!Files.isDirectory(rootDirectory)) {
+            return null;
+        }
+        // every class list stored for the root is a candidate, usually there are only a few
+        try (DirectoryStream<Path> classLists = Files.newDirectoryStream(rootDirectory, "*" + CLASSES_SUFFIX)) {
+            for (Path classList : classLists) {
+                Set<String> classNames = new TreeSet(Arrays.asList(new String(Files.readAllBytes(classList), StandardCharsets.UTF_8).split(",")));
+                String digest = IncrementalBuildState.digest(classNames, classLoader);
+                Path schemaFile = rootDirectory.resolve(digest + SCHEMA_SUFFIX);
+                if (!digest.isEmpty() && Files.isRegularFile(schemaFile)) {
+                    return new Entry(Files.readAllBytes(schemaFile), classNames);
+                }
+            }
+        }
+        return null;
+    }
+
+    public void put(String rootClassName, String configHash, Set<String> classNames, byte[] schemaBytes) throws IOException {
+        Set<String> sortedClassNames = new TreeSet(classNames);
+        String digest = IncrementalBuildState.digest(sortedClassNames, classLoader);
+        if (digest.isEmpty()) {
+            return;
+        }
+        Path rootDirectory = Files.createDirectories(getRootDirectory(rootClassName, configHash));
+        String classes = String.join(",", sortedClassNames);
+        // the schema is written first, a class list without its schema is merely a miss
+        write(rootDirectory.resolve(digest + SCHEMA_SUFFIX), schemaBytes);
+        write(rootDirectory.resolve(IncrementalBuildState.hash(classes) + CLASSES_SUFFIX), classes.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Concurrent builds may write the same entry, they never see a partially written file
+    private static void write(Path path, byte[] bytes) throws IOException {
+        if (Files.isRegularFile(path)) {
+            return;
+        }
+        Path tempFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tempFile, bytes);
+            try {
+                Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    public static final class Entry {
+
+        private final byte[] schemaBytes;
+        private final Set<String> classNames;
+
+        private Entry(byte[] schemaBytes, Set<String> classNames) {
+            this.schemaBytes = schemaBytes;
+            this.classNames = Collections.unmodifiableSet(classNames);
+        }
+
+        public byte[] getSchemaBytes() {
+            return schemaBytes;
+        }
+
+        public Set<String> getClassNames() {
+            return classNames;
+        }
+
+    }
+
+}
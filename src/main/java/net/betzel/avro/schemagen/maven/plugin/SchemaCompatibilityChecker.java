@@ -0,0 +1,148 @@
+package net.betzel.avro.schemagen.maven.plugin;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaCompatibility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Checks generated schemas against a baseline for BACKWARD, FORWARD or FULL compatibility. The result of every reader and writer pair is
+ * stored under the hashes of both schemas, a pair is only resolved again when one of its schemas changed. The hashes are taken from the
+ * full schema, its parsing canonical form leaves out the defaults and the logical types that decide compatibility.
+ */
+public final class SchemaCompatibilityChecker {
+
+    private static final String AVRO_VERSION_KEY = "avro.version";
+    // The value of a compatible pair, any other value is the description of the first incompatibility
+    private static final String COMPATIBLE = "COMPATIBLE";
+
+    private final Path cacheFile;
+    private final Properties properties = new Properties();
+    private int resolvedPairs;
+    private boolean changed;
+
+    public enum Compatibility {
+        // the new schema reads data written with the baseline schema
+        BACKWARD,
+        // the baseline schema reads data written with the new schema
+        FORWARD,
+        // both of them
+        FULL
+    }
+
+    /**
+     * @param cacheFile the file the pairwise results are kept in between builds, null to keep them in memory only
+     */
+    public SchemaCompatibilityChecker(Path cacheFile) throws IOException {
+        this.cacheFile = cacheFile;
+        properties.putAll(load(cacheFile));
+        properties.setProperty(AVRO_VERSION_KEY, getAvroVersion());
+    }
+
+    // The results of the cache file, results of another Avro version are not trusted
+    private static Properties load(Path cacheFile) throws IOException {
+        Properties properties = new Properties();
+        if (Objects.nonNull(cacheFile) && Files.isRegularFile(cacheFile)) {
+            try (InputStream inputStream = Files.newInputStream(cacheFile)) {
+                properties.load(inputStream);
+            }
+        }
+        if (!getAvroVersion().equals(properties.getProperty(AVRO_VERSION_KEY))) {
+            properties.clear();
+        }
+        return properties;
+    }
+
+    private static String getAvroVersion() {
+        return String.valueOf(Schema.class.getPackage().getImplementationVersion());
+    }
+
+    /**
+     * Returns the incompatibilities of the new schema with the baseline schema, an empty list if the schemas are compatible.
+     */
+    public synchronized List<String> check(Schema schema, Schema baselineSchema, Compatibility compatibility) {
+        String hash = IncrementalBuildState.hash(schema.toString());
+        String baselineHash = IncrementalBuildState.hash(baselineSchema.toString());
+        List<String> incompatibilities = new ArrayList();
+        if (compatibility != Compatibility.FORWARD) {
+            String incompatibility = check(schema, hash, baselineSchema, baselineHash);
+            if (!COMPATIBLE.equals(incompatibility)) {
+                incompatibilities.add("BACKWARD: " + incompatibility);
+            }
+        }
+        if (compatibility != Compatibility.BACKWARD) {
+            String incompatibility = check(baselineSchema, baselineHash, schema, hash);
+            if (!COMPATIBLE.equals(incompatibility)) {
+                incompatibilities.add("FORWARD: " + incompatibility);
+            }
+        }
+        return incompatibilities;
+    }
+
+    private String check(Schema reader, String readerHash, Schema writer, String writerHash) {
+        String key = readerHash + "." + writerHash;
+        String result = properties.getProperty(key);
+        // an empty result is no description, it is resolved again
+        if (Objects.isNull(result) || result.isEmpty()) {
+            SchemaCompatibility.SchemaPairCompatibility pairCompatibility = SchemaCompatibility.checkReaderWriterCompatibility(reader, writer);
+            if (pairCompatibility.getType() == SchemaCompatibility.SchemaCompatibilityType.COMPATIBLE) {
+                result = COMPATIBLE;
+            } else if (pairCompatibility.getResult().getIncompatibilities().isEmpty()) {
+                result = pairCompatibility.getType().name();
+            } else {
+                SchemaCompatibility.Incompatibility incompatibility = pairCompatibility.getResult().getIncompatibilities().get(0);
+                result = incompatibility.getType() + " at " + incompatibility.getLocation() + ": " + incompatibility.getMessage();
+            }
+            properties.setProperty(key, result);
+            resolvedPairs++;
+            changed = true;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of reader and writer pairs that were not cached and had to be resolved.
+     */
+    public synchronized int getResolvedPairs() {
+        return resolvedPairs;
+    }
+
+    /**
+     * Merges the results into the cache file, which may be shared by the modules of a reactor building in parallel. The file is replaced
+     * atomically, other modules never read a partially written file.
+     */
+    public synchronized void save() throws IOException {
+        if (Objects.isNull(cacheFile) || !changed) {
+            return;
+        }
+        Files.createDirectories(cacheFile.getParent());
+        // the results saved by other modules in the meantime are kept
+        Properties merged = load(cacheFile);
+        merged.putAll(properties);
+        Path tempFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                merged.store(outputStream, "AVRO schema compatibility results");
+            }
+            try {
+                Files.move(tempFile, cacheFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        changed = false;
+    }
+
+}
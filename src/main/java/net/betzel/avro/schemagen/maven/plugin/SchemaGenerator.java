@@ -0,0 +1,22 @@
+package net.betzel.avro.schemagen.maven.plugin;
+
+import org.apache.avro.Protocol;
+import org.apache.avro.Schema;
+import org.apache.avro.reflect.ReflectData;
+
+// Generates the polymorphic schema of a class or the protocol of an interface
+public interface SchemaGenerator {
+
+    Schema generateSchema(Class clazz);
+
+    Protocol generateProtocol(Class clazz);
+
+    ReflectData getReflectData();
+
+    long getCreatedRecords();
+
+    long getCompletedRecords();
+
+    long getReusedRecords();
+
+}
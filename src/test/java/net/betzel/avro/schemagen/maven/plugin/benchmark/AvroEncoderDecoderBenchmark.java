@@ -0,0 +1,116 @@
+package net.betzel.avro.schemagen.maven.plugin.benchmark;
+
+import net.betzel.avro.schemagen.maven.plugin.AvroConversions;
+import net.betzel.avro.schemagen.maven.plugin.AvroEncoderDecoder;
+import net.betzel.avro.schemagen.maven.plugin.AvroSchemaGenerator;
+import net.betzel.avro.schemagen.maven.plugin.test.AvroComplexTypesRecord;
+import net.betzel.avro.schemagen.maven.plugin.test.AvroPrimitiveTypesRecord;
+import org.apache.avro.Conversion;
+import org.apache.avro.Conversions;
+import org.apache.avro.Schema;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.reflect.ReflectData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Encode and decode throughput of the test records, with per-call or long-lived codecs and with custom coders on and off
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvroEncoderDecoderBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"primitive", "complex"})
+    String recordType;
+    @Param({"false", "true"})
+    boolean useCustomCoders;
+    @Param({"false", "true"})
+    boolean reuseCoders;
+    // A codec compiled at runtime, reused whatever reuseCoders is
+    @Param({"false", "true"})
+    boolean generateCodec;
+
+    private AvroEncoderDecoder<Object> avroEncoderDecoder;
+    private Object record;
+    private List<Object> batch;
+    private ByteArrayOutputStream byteArrayOutputStream;
+    private byte[] recordBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        List<Conversion<?>> conversions = new ArrayList();
+        conversions.add(new Conversions.UUIDConversion());
+        conversions.add(new TimeConversions.DateConversion());
+        conversions.add(new TimeConversions.TimeMillisConversion());
+        conversions.add(new AvroConversions.UtilDateTimestampMillis());
+        conversions.add(new AvroConversions.ZonedDateTimestampMillis());
+        conversions.add(new TimeConversions.TimestampMillisConversion());
+        conversions.add(new TimeConversions.LocalTimestampMillisConversion());
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, useCustomCoders, false);
+        avroSchemaGenerator.setConversions(conversions);
+        Random random = new Random(13L);
+        Schema schema;
+        if ("complex".equals(recordType)) {
+            schema = avroSchemaGenerator.generateSchema(AvroComplexTypesRecord.class);
+            record = new AvroComplexTypesRecord(random, LocalDateTime.now(), ZonedDateTime.now());
+        } else {
+            schema = avroSchemaGenerator.generateSchema(AvroPrimitiveTypesRecord.class);
+            record = new AvroPrimitiveTypesRecord(random);
+        }
+        ReflectData reflectData = avroSchemaGenerator.getReflectData();
+        if (generateCodec) {
+            avroEncoderDecoder = new AvroEncoderDecoder(schema, reflectData, true, true);
+        } else {
+            avroEncoderDecoder = reuseCoders ? AvroEncoderDecoder.getCached(schema, reflectData) : new AvroEncoderDecoder(schema, reflectData);
+        }
+        batch = Collections.nCopies(BATCH_SIZE, record);
+        byteArrayOutputStream = new ByteArrayOutputStream(512);
+        avroEncoderDecoder.encodeAvro(byteArrayOutputStream, record);
+        recordBytes = byteArrayOutputStream.toByteArray();
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        byteArrayOutputStream.reset();
+        avroEncoderDecoder.encodeAvro(byteArrayOutputStream, record);
+        return byteArrayOutputStream.size();
+    }
+
+    // A batch of records through one encoder with a single flush, per record throughput is the score times the batch size
+    @Benchmark
+    public int encodeBatch() throws IOException {
+        byteArrayOutputStream.reset();
+        avroEncoderDecoder.encodeAll(byteArrayOutputStream, batch);
+        return byteArrayOutputStream.size();
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return avroEncoderDecoder.decodeAvro(new ByteArrayInputStream(recordBytes));
+    }
+
+}
@@ -0,0 +1,91 @@
+package net.betzel.avro.schemagen.maven.plugin.benchmark;
+
+import net.betzel.avro.schemagen.maven.plugin.AvroSchemaGenerator;
+import net.betzel.avro.schemagen.maven.plugin.FileClassLoader;
+import org.apache.avro.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Schema generation and polymorphization of synthetic class hierarchies of growing width and depth
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvroSchemaGeneratorBenchmark {
+
+    @Param({"1", "4", "16"})
+    int width;
+    @Param({"1", "4"})
+    int depth;
+
+    private SyntheticHierarchy syntheticHierarchy;
+    private FileClassLoader fileClassLoader;
+    private Class<?> rootClass;
+    private Class<?>[] subClasses;
+
+    @Setup
+    public void setup() throws IOException, ClassNotFoundException {
+        syntheticHierarchy = new SyntheticHierarchy(width, depth);
+        fileClassLoader = syntheticHierarchy.newClassLoader();
+        // subtypes are resolved by name through the context class loader
+        Thread.currentThread().setContextClassLoader(fileClassLoader);
+        rootClass = fileClassLoader.loadClass(SyntheticHierarchy.ROOT_CLASS_NAME);
+        List<String> subClassNames = syntheticHierarchy.getSubClassNames();
+        subClasses = new Class<?>[subClassNames.size()];
+        for (int i = 0; i < subClasses.length; i++) {
+            subClasses[i] = fileClassLoader.loadClass(subClassNames.get(i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fileClassLoader.close();
+        syntheticHierarchy.close();
+    }
+
+    // A generator with declared polymorphic types and the reflected root schema, prepared outside of the measurement
+    @State(Scope.Thread)
+    public static class DeclaredGenerator {
+
+        AvroSchemaGenerator avroSchemaGenerator;
+        Schema rootSchema;
+
+        @Setup(Level.Invocation)
+        public void setup(AvroSchemaGeneratorBenchmark benchmark) {
+            avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+            avroSchemaGenerator.declarePolymorphicType(null, benchmark.subClasses);
+            rootSchema = avroSchemaGenerator.getReflectData().getSchema(benchmark.rootClass);
+        }
+
+    }
+
+    @Benchmark
+    public Schema generateSchema() {
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.declarePolymorphicType(null, subClasses);
+        return avroSchemaGenerator.generateSchema(rootClass);
+    }
+
+    @Benchmark
+    public Schema polymorphizeSchema(DeclaredGenerator declaredGenerator) {
+        return declaredGenerator.avroSchemaGenerator.polymorphizeSchema(declaredGenerator.rootSchema);
+    }
+
+}
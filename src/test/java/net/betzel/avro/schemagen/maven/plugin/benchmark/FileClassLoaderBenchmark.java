@@ -0,0 +1,86 @@
+package net.betzel.avro.schemagen.maven.plugin.benchmark;
+
+import net.betzel.avro.schemagen.maven.plugin.FileClassLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Class lookups of a new class loader against lookups of a class loader which already defined the classes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileClassLoaderBenchmark {
+
+    private SyntheticHierarchy syntheticHierarchy;
+    private FileClassLoader warmClassLoader;
+    private List<String> classNames;
+    private List<String> missingClassNames;
+
+    @Setup
+    public void setup() throws IOException, ClassNotFoundException {
+        syntheticHierarchy = new SyntheticHierarchy(16, 4);
+        classNames = new ArrayList();
+        classNames.add(SyntheticHierarchy.ROOT_CLASS_NAME);
+        classNames.add(SyntheticHierarchy.BASE_CLASS_NAME);
+        classNames.addAll(syntheticHierarchy.getSubClassNames());
+        missingClassNames = new ArrayList();
+        for (String className : classNames) {
+            missingClassNames.add(className + "Missing");
+        }
+        warmClassLoader = syntheticHierarchy.newClassLoader();
+        for (String className : classNames) {
+            warmClassLoader.loadClass(className);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        warmClassLoader.close();
+        syntheticHierarchy.close();
+    }
+
+    @Benchmark
+    public void coldLoadClass(Blackhole blackhole) throws IOException, ClassNotFoundException {
+        try (FileClassLoader fileClassLoader = syntheticHierarchy.newClassLoader()) {
+            for (String className : classNames) {
+                blackhole.consume(fileClassLoader.loadClass(className));
+            }
+        }
+    }
+
+    @Benchmark
+    public void warmLoadClass(Blackhole blackhole) throws ClassNotFoundException {
+        for (String className : classNames) {
+            blackhole.consume(warmClassLoader.loadClass(className));
+        }
+    }
+
+    @Benchmark
+    public void warmMissingClass(Blackhole blackhole) {
+        for (String className : missingClassNames) {
+            try {
+                blackhole.consume(warmClassLoader.loadClass(className));
+            } catch (ClassNotFoundException e) {
+                blackhole.consume(e);
+            }
+        }
+    }
+
+}
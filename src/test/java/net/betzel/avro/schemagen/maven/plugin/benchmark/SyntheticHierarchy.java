@@ -0,0 +1,98 @@
+package net.betzel.avro.schemagen.maven.plugin.benchmark;
+
+import net.betzel.avro.schemagen.maven.plugin.FileClassLoader;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// Compiles a class hierarchy of a root class with polymorphic fields of a base class, extended by width chains of depth subclasses
+public final class SyntheticHierarchy implements AutoCloseable {
+
+    static final String PACKAGE_NAME = "net.betzel.avro.schemagen.synthetic";
+    static final String ROOT_CLASS_NAME = PACKAGE_NAME + ".Root";
+    static final String BASE_CLASS_NAME = PACKAGE_NAME + ".Node";
+
+    private final Path directory;
+    private final List<String> subClassNames = new ArrayList();
+
+    public SyntheticHierarchy(int width, int depth) throws IOException {
+        directory = Files.createTempDirectory("avro-schemagen-benchmark");
+        Path packageDirectory = Files.createDirectories(directory.resolve(PACKAGE_NAME.replace('.', File.separatorChar)));
+        List<String> sourceFiles = new ArrayList();
+        sourceFiles.add(writeSource(packageDirectory, "Root", "public class Root {\n"
+                + "    public Node node;\n"
+                + "    public java.util.List<Node> nodes;\n"
+                + "}\n"));
+        sourceFiles.add(writeSource(packageDirectory, "Node", "public class Node {\n"
+                + "    public String name;\n"
+                + "    public Node next;\n"
+                + "}\n"));
+        for (int w = 0; w < width; w++) {
+            String superClassName = "Node";
+            for (int d = 0; d < depth; d++) {
+                String className = "Node" + w + "_" + d;
+                sourceFiles.add(writeSource(packageDirectory, className, "public class " + className + " extends " + superClassName + " {\n"
+                        + "    public int value" + w + "_" + d + ";\n"
+                        + "}\n"));
+                subClassNames.add(PACKAGE_NAME + "." + className);
+                superClassName = className;
+            }
+        }
+        JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
+        if (Objects.isNull(javaCompiler)) {
+            throw new IllegalStateException("Benchmarks with a synthetic class hierarchy require a JDK");
+        }
+        List<String> arguments = new ArrayList();
+        arguments.add("-nowarn");
+        arguments.add("-d");
+        arguments.add(directory.toString());
+        arguments.addAll(sourceFiles);
+        if (javaCompiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("Compilation of the synthetic class hierarchy failed");
+        }
+    }
+
+    private static String writeSource(Path packageDirectory, String className, String body) throws IOException {
+        Path sourceFile = packageDirectory.resolve(className + ".java");
+        Files.write(sourceFile, ("package " + PACKAGE_NAME + ";\n\n" + body).getBytes(StandardCharsets.UTF_8));
+        return sourceFile.toString();
+    }
+
+    public FileClassLoader newClassLoader() throws IOException {
+        return new FileClassLoader(Collections.singleton(directory.toFile()), SyntheticHierarchy.class.getClassLoader());
+    }
+
+    public List<String> getSubClassNames() {
+        return subClassNames;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+}
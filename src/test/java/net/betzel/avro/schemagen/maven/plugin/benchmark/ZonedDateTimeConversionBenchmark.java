@@ -0,0 +1,80 @@
+package net.betzel.avro.schemagen.maven.plugin.benchmark;
+
+import net.betzel.avro.schemagen.maven.plugin.AvroConversions;
+import org.apache.avro.Conversion;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.reflect.ReflectData;
+import org.apache.avro.reflect.ReflectDatumReader;
+import org.apache.avro.reflect.ReflectDatumWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Encode and decode throughput of a zoned date time as ISO string and in the compact binary form, see AvroComplexTypesTest for the sizes
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZonedDateTimeConversionBenchmark {
+
+    @Param({"string", "compact"})
+    String conversionType;
+
+    private ReflectDatumWriter<ZonedDateTime> datumWriter;
+    private ReflectDatumReader<ZonedDateTime> datumReader;
+    private ZonedDateTime zonedDateTime;
+    private ByteArrayOutputStream byteArrayOutputStream;
+    private BinaryEncoder binaryEncoder;
+    private BinaryDecoder binaryDecoder;
+    private byte[] zonedDateTimeBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        Conversion<ZonedDateTime> conversion = "compact".equals(conversionType) ? new AvroConversions.ZonedDateTimestampCompact() : new AvroConversions.ZonedDateTimestampMillis();
+        ReflectData reflectData = new ReflectData();
+        reflectData.addLogicalTypeConversion(conversion);
+        Schema schema = conversion.getRecommendedSchema();
+        datumWriter = new ReflectDatumWriter(schema, reflectData);
+        datumReader = new ReflectDatumReader(schema, schema, reflectData);
+        zonedDateTime = ZonedDateTime.of(2024, 3, 31, 2, 30, 15, 123_000_000, ZoneId.of("Europe/Amsterdam"));
+        byteArrayOutputStream = new ByteArrayOutputStream(64);
+        encode();
+        zonedDateTimeBytes = byteArrayOutputStream.toByteArray();
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        byteArrayOutputStream.reset();
+        binaryEncoder = EncoderFactory.get().binaryEncoder(byteArrayOutputStream, binaryEncoder);
+        datumWriter.write(zonedDateTime, binaryEncoder);
+        binaryEncoder.flush();
+        return byteArrayOutputStream.size();
+    }
+
+    @Benchmark
+    public ZonedDateTime decode() throws IOException {
+        binaryDecoder = DecoderFactory.get().binaryDecoder(zonedDateTimeBytes, binaryDecoder);
+        return datumReader.read(null, binaryDecoder);
+    }
+
+}
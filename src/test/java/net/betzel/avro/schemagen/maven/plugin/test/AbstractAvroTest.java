@@ -10,8 +10,6 @@ import org.apache.avro.reflect.ReflectData;
 import org.javers.core.Javers;
 import org.javers.core.JaversBuilder;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
@@ -39,14 +37,12 @@ public abstract class AbstractAvroTest {
 
     static byte[] encode(ReflectData reflectData, Schema schema, Object object) throws IOException {
         AvroEncoderDecoder serializer = new AvroEncoderDecoder(schema, reflectData);
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        serializer.encodeAvro(byteArrayOutputStream, object);
-        return byteArrayOutputStream.toByteArray();
+        return serializer.encodeAvro(object);
     }
 
     static <T> T decode(ReflectData reflectData, Schema schema, byte[] bytes) throws IOException {
         AvroEncoderDecoder<T> serializer = new AvroEncoderDecoder(schema, reflectData);
-        return serializer.decodeAvro(new ByteArrayInputStream(bytes));
+        return serializer.decodeAvro(bytes, 0, bytes.length);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+package net.betzel.avro.schemagen.maven.plugin.test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import net.betzel.avro.schemagen.maven.plugin.AvroCodecGenerator;
+import net.betzel.avro.schemagen.maven.plugin.AvroEncoderDecoder;
+import net.betzel.avro.schemagen.maven.plugin.AvroSchemaGenerator;
+import net.betzel.avro.schemagen.maven.plugin.FileClassLoader;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.reflect.ReflectData;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class AvroCodecGeneratorTest extends AbstractAvroTest {
+
+    private static final File TEST_CLASSES = new File(AvroPrimitiveTypesRecord.class.getProtectionDomain().getCodeSource().getLocation().getPath());
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testPrimitiveTypes() throws Exception {
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        Schema schema = avroSchemaGenerator.generateSchema(AvroPrimitiveTypesRecord.class);
+        AvroCodecGenerator avroCodecGenerator = new AvroCodecGenerator(AvroPrimitiveTypesRecord.class, schema);
+        try (FileClassLoader fileClassLoader = compile(avroCodecGenerator)) {
+            Object record = fileClassLoader.loadClass(AvroPrimitiveTypesRecord.class.getName()).getConstructor(Random.class).newInstance(random);
+            assertCodec(avroSchemaGenerator.getReflectData(), schema, avroCodecGenerator, fileClassLoader, record);
+        }
+        Assert.assertTrue(avroCodecGenerator.getFallbacks().isEmpty());
+    }
+
+    @Test
+    public void testComplexTypes() throws Exception {
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        Schema schema = avroSchemaGenerator.generateSchema(AvroComplexTypesRecord.class);
+        AvroCodecGenerator avroCodecGenerator = new AvroCodecGenerator(AvroComplexTypesRecord.class, schema);
+        try (FileClassLoader fileClassLoader = compile(avroCodecGenerator)) {
+            Object record = fileClassLoader.loadClass(AvroComplexTypesRecord.class.getName()).getConstructor(Random.class, LocalDateTime.class, ZonedDateTime.class)
+                    .newInstance(random, localDateTime, zonedDateTime);
+            assertCodec(avroSchemaGenerator.getReflectData(), schema, avroCodecGenerator, fileClassLoader, record);
+        }
+        Assert.assertTrue(avroCodecGenerator.getFallbacks().isEmpty());
+    }
+
+    @Test
+    public void testInheritTypes() throws Exception {
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        Schema schema = avroSchemaGenerator.generateSchema(AvroInheritChild2TypesRecord.class);
+        AvroCodecGenerator avroCodecGenerator = new AvroCodecGenerator(AvroInheritChild2TypesRecord.class, schema);
+        try (FileClassLoader fileClassLoader = compile(avroCodecGenerator)) {
+            Object record = fileClassLoader.loadClass(AvroInheritChild2TypesRecord.class.getName()).getConstructor(LocalDateTime.class).newInstance(localDateTime);
+            assertCodec(avroSchemaGenerator.getReflectData(), schema, avroCodecGenerator, fileClassLoader, record);
+        }
+        Assert.assertTrue(avroCodecGenerator.getFallbacks().isEmpty());
+    }
+
+    @Test
+    public void testMixedTypes() throws Exception {
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        avroSchemaGenerator.declarePolymorphicType(null, IllegalArgumentException.class, NullPointerException.class, IOException.class, InterruptedException.class, ArrayIndexOutOfBoundsException.class);
+        avroSchemaGenerator.declarePolymorphicType("net.betzel.avro.schemagen.maven.plugin.test.AvroMixedTypesRecord.serializable", IllegalArgumentException.class, NullPointerException.class, IOException.class, InterruptedException.class, ArrayIndexOutOfBoundsException.class);
+        avroSchemaGenerator.declarePolymorphicType("net.betzel.avro.schemagen.maven.plugin.test.AvroMixedTypesRecord.stringObjectHashMap", IllegalArgumentException.class, NullPointerException.class, IOException.class, InterruptedException.class, ArrayIndexOutOfBoundsException.class);
+        Schema schema = avroSchemaGenerator.generateSchema(AvroMixedTypesRecord.class);
+        AvroCodecGenerator avroCodecGenerator = new AvroCodecGenerator(AvroMixedTypesRecord.class, schema);
+        try (FileClassLoader fileClassLoader = compile(avroCodecGenerator)) {
+            Object record = fileClassLoader.loadClass(AvroMixedTypesRecord.class.getName()).getConstructor(Random.class, LocalDateTime.class).newInstance(random, localDateTime);
+            assertCodec(avroSchemaGenerator.getReflectData(), schema, avroCodecGenerator, fileClassLoader, record);
+        }
+    }
+
+    @Test
+    public void testPolymorphicTypes() throws Exception {
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(false, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        avroSchemaGenerator.declarePolymorphicType(null, IllegalArgumentException.class, NullPointerException.class, IOException.class, InterruptedException.class, ArrayIndexOutOfBoundsException.class);
+        avroSchemaGenerator.declarePolymorphicType("net.betzel.avro.schemagen.maven.plugin.test.AvroPolymorphicTypesRecord.serializables", IllegalArgumentException.class, NullPointerException.class, IOException.class, InterruptedException.class, ArrayIndexOutOfBoundsException.class);
+        avroSchemaGenerator.declarePolymorphicType("net.betzel.avro.schemagen.maven.plugin.test.AvroPolymorphicTypesRecord.serializable", EOFException.class);
+        Schema schema = avroSchemaGenerator.generateSchema(AvroPolymorphicTypesRecord.class);
+        AvroCodecGenerator avroCodecGenerator = new AvroCodecGenerator(AvroPolymorphicTypesRecord.class, schema);
+        try (FileClassLoader fileClassLoader = compile(avroCodecGenerator)) {
+            Class<?> recordClass = fileClassLoader.loadClass(AvroPolymorphicTypesRecord.class.getName());
+            Object record = recordClass.newInstance();
+            recordClass.getField("object").set(record, new Object());
+            recordClass.getField("throwable").set(record, new Throwable("Throwable"));
+            recordClass.getField("exception").set(record, new IOException("IO Exception"));
+            recordClass.getField("runtimeException").set(record, new NullPointerException("Null pointer Exception"));
+            recordClass.getField("serializable").set(record, new EOFException("EOF"));
+            List<Throwable> throwables = new ArrayList(Arrays.asList(new IOException("1"), new NullPointerException("2"), new InterruptedException("3")));
+            recordClass.getField("throwables").set(record, throwables);
+            // exceptions hash by identity, more than one element would restore in another order
+            recordClass.getField("exceptions").set(record, new HashSet(Arrays.asList(new ArrayIndexOutOfBoundsException(5))));
+            List<Serializable> serializables = new ArrayList(Arrays.asList(new IOException("1"), new IllegalArgumentException("4")));
+            recordClass.getField("serializables").set(record, serializables);
+            Map<String, Exception> exceptionMap = new HashMap();
+            exceptionMap.put("A", new IOException("1"));
+            exceptionMap.put("B", new NullPointerException("2"));
+            recordClass.getField("exceptionMap").set(record, exceptionMap);
+            assertCodec(avroSchemaGenerator.getReflectData(), schema, avroCodecGenerator, fileClassLoader, record);
+        }
+    }
+
+    @Test
+    public void testRuntimeCodec() throws Exception {
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        Schema schema = avroSchemaGenerator.generateSchema(AvroComplexTypesRecord.class);
+        ReflectData reflectData = avroSchemaGenerator.getReflectData();
+        AvroEncoderDecoder<AvroComplexTypesRecord> avroEncoderDecoder = new AvroEncoderDecoder(schema, reflectData, false, true);
+        Assert.assertTrue(avroEncoderDecoder.isGeneratedCodec());
+        Assert.assertNull(avroEncoderDecoder.getCodecFailure());
+        Assert.assertTrue(avroEncoderDecoder.isReuseCoders());
+        AvroComplexTypesRecord record = new AvroComplexTypesRecord(random, localDateTime, zonedDateTime);
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        avroEncoderDecoder.encodeAvro(byteArrayOutputStream, record);
+        byte[] bytes = byteArrayOutputStream.toByteArray();
+        Assert.assertArrayEquals(encode(reflectData, schema, record), bytes);
+        AvroComplexTypesRecord restored = avroEncoderDecoder.decodeAvro(new ByteArrayInputStream(bytes));
+        Assert.assertFalse(javers.compare(record, restored).hasChanges());
+        // a reused record is read into, also its date
+        AvroComplexTypesRecord reuse = new AvroComplexTypesRecord(random, localDateTime.minusDays(5), zonedDateTime);
+        Date reuseDate = reuse.date;
+        Assert.assertSame(reuse, avroEncoderDecoder.decodeAvro(new ByteArrayInputStream(bytes), reuse));
+        Assert.assertSame(reuseDate, reuse.date);
+        Assert.assertFalse(javers.compare(record, reuse).hasChanges());
+        // the codec class is compiled once per class and schema
+        Assert.assertTrue(new AvroEncoderDecoder(schema, reflectData, true, true).isGeneratedCodec());
+        // without a codec the reason is kept
+        AvroEncoderDecoder unknownEncoderDecoder = new AvroEncoderDecoder(Schema.createRecord("Unknown", null, "net.betzel.unknown", false, new ArrayList()), reflectData, true, true);
+        Assert.assertFalse(unknownEncoderDecoder.isGeneratedCodec());
+        Assert.assertTrue(unknownEncoderDecoder.getCodecFailure().getMessage().startsWith("No class found"));
+    }
+
+    // The codec writes the same bytes as ReflectData and reads them back into a record that ReflectData encodes the same
+    private void assertCodec(ReflectData reflectData, Schema schema, AvroCodecGenerator avroCodecGenerator, ClassLoader classLoader, Object record) throws Exception {
+        Object codec = classLoader.loadClass(avroCodecGenerator.getCodecClassName()).getConstructor(ReflectData.class).newInstance(reflectData);
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        BinaryEncoder binaryEncoder = EncoderFactory.get().binaryEncoder(byteArrayOutputStream, null);
+        ((DatumWriter<Object>) codec).write(record, binaryEncoder);
+        binaryEncoder.flush();
+        byte[] bytes = byteArrayOutputStream.toByteArray();
+        Assert.assertArrayEquals(encode(reflectData, schema, record), bytes);
+        Object restored = ((DatumReader<Object>) codec).read(null, DecoderFactory.get().binaryDecoder(bytes, null));
+        Assert.assertSame(record.getClass(), restored.getClass());
+        Assert.assertArrayEquals(bytes, encode(reflectData, schema, restored));
+    }
+
+    // Compile the codec, it is defined by the class loader of the test records to access their package private members
+    private FileClassLoader compile(AvroCodecGenerator avroCodecGenerator) throws IOException {
+        File sourceDirectory = temporaryFolder.newFolder("sources");
+        File classDirectory = temporaryFolder.newFolder("classes");
+        Path sourceFile = sourceDirectory.toPath().resolve(avroCodecGenerator.getCodecClassName().replace('.', File.separatorChar) + ".java");
+        Files.createDirectories(sourceFile.getParent());
+        Files.write(sourceFile, avroCodecGenerator.generate().getBytes(StandardCharsets.UTF_8));
+        String classPath = String.join(File.pathSeparator, TEST_CLASSES.getPath(), getLocation(Schema.class), getLocation(JsonNode.class), getLocation(JsonParser.class));
+        JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
+        Assert.assertEquals(0, javaCompiler.run(null, null, null, "-nowarn", "-classpath", classPath, "-d", classDirectory.getPath(), sourceFile.toString()));
+        return new FileClassLoader(Arrays.asList(classDirectory, TEST_CLASSES), AvroCodecGeneratorTest.class.getClassLoader());
+    }
+
+    private static String getLocation(Class<?> clazz) {
+        return new File(clazz.getProtectionDomain().getCodeSource().getLocation().getPath()).getPath();
+    }
+
+}
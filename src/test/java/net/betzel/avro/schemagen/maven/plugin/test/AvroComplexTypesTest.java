@@ -1,7 +1,10 @@
 package net.betzel.avro.schemagen.maven.plugin.test;
 
+import net.betzel.avro.schemagen.maven.plugin.AvroConversions;
+import net.betzel.avro.schemagen.maven.plugin.AvroLogicalTypes;
 import net.betzel.avro.schemagen.maven.plugin.AvroSchemaGenerator;
 import org.apache.avro.AvroTypeException;
+import org.apache.avro.Conversion;
 import org.apache.avro.Schema;
 import org.javers.core.diff.Diff;
 import org.junit.Assert;
@@ -11,6 +14,12 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 public class AvroComplexTypesTest extends AbstractAvroTest implements Serializable {
 
@@ -30,6 +39,36 @@ public class AvroComplexTypesTest extends AbstractAvroTest implements Serializab
         Assert.assertFalse(diff.hasChanges());
     }
 
+    @Test
+    public void testComplexTypesCompactZonedDateTime() throws IOException {
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        Schema avroComplexTypesRecordSchema = avroSchemaGenerator.generateSchema(AvroComplexTypesRecord.class);
+        AvroComplexTypesRecord avroComplexTypesRecord = new AvroComplexTypesRecord(random, localDateTime, zonedDateTime);
+        byte[] avroComplexTypesRecordBytes = encode(avroSchemaGenerator.getReflectData(), avroComplexTypesRecordSchema, avroComplexTypesRecord);
+
+        List<Conversion<?>> compactConversions = new ArrayList(conversions);
+        compactConversions.removeIf(conversion -> conversion instanceof AvroConversions.ZonedDateTimestampMillis);
+        compactConversions.add(new AvroConversions.ZonedDateTimestampCompact());
+        AvroSchemaGenerator compactSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        compactSchemaGenerator.setConversions(compactConversions);
+        Schema compactSchema = compactSchemaGenerator.generateSchema(AvroComplexTypesRecord.class);
+        Assert.assertEquals(AvroLogicalTypes.ZONED_DATE_TIMESTAMP_COMPACT, compactSchema.getField("zonedDateTime").schema().getTypes().get(1).getProp("logicalType"));
+        byte[] compactBytes = encode(compactSchemaGenerator.getReflectData(), compactSchema, avroComplexTypesRecord);
+        LOGGER.info("Size of serialized data in bytes: {} with ISO and {} with compact zoned date times", avroComplexTypesRecordBytes.length, compactBytes.length);
+        Assert.assertTrue(compactBytes.length < avroComplexTypesRecordBytes.length);
+        AvroComplexTypesRecord avroComplexTypesRecordRestored = decode(compactSchemaGenerator.getReflectData(), compactSchema, compactBytes);
+        Diff diff = javers.compare(avroComplexTypesRecord, avroComplexTypesRecordRestored);
+        Assert.assertFalse(diff.hasChanges());
+
+        // offsets without region, nanos and dates before the epoch
+        AvroConversions.ZonedDateTimestampCompact compact = new AvroConversions.ZonedDateTimestampCompact();
+        for (ZonedDateTime value : new ZonedDateTime[]{zonedDateTime, ZonedDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_999, ZoneOffset.ofHours(-5)),
+                ZonedDateTime.ofStrict(LocalDateTime.of(2023, 10, 29, 2, 30), ZoneOffset.ofHours(1), ZoneId.of("Europe/Amsterdam"))}) {
+            Assert.assertEquals(value, compact.fromBytes(compact.toBytes(value, null, null), null, null));
+        }
+    }
+
     @Test
     public void testComplexTypesAllowNullFields2() throws IOException {
         AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
@@ -0,0 +1,124 @@
+package net.betzel.avro.schemagen.maven.plugin.test;
+
+import net.betzel.avro.schemagen.maven.plugin.AvroEncoderDecoder;
+import net.betzel.avro.schemagen.maven.plugin.AvroSchemaGenerator;
+import org.apache.avro.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class AvroEncoderDecoderTest extends AbstractAvroTest {
+
+    @Test
+    public void testBatches() throws IOException {
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        Schema schema = avroSchemaGenerator.generateSchema(AvroComplexTypesRecord.class);
+        List<AvroComplexTypesRecord> records = new ArrayList();
+        for (int i = 0; i < 100; i++) {
+            records.add(new AvroComplexTypesRecord(random, localDateTime.minusHours(i), zonedDateTime.minusHours(i)));
+        }
+        for (boolean reuseCoders : new boolean[]{false, true}) {
+            AvroEncoderDecoder<AvroComplexTypesRecord> avroEncoderDecoder = new AvroEncoderDecoder(schema, avroSchemaGenerator.getReflectData(), reuseCoders);
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            avroEncoderDecoder.encodeAll(byteArrayOutputStream, records);
+            byte[] batchBytes = byteArrayOutputStream.toByteArray();
+
+            // one message per record, the same bytes as a record encoded on its own
+            ByteArrayOutputStream eachOutputStream = new ByteArrayOutputStream();
+            List<byte[]> messages = new ArrayList();
+            avroEncoderDecoder.encodeEach(records, byteBuffer -> {
+                byte[] message = new byte[byteBuffer.remaining()];
+                byteBuffer.get(message);
+                messages.add(message);
+                eachOutputStream.write(message, 0, message.length);
+            });
+            Assert.assertEquals(records.size(), messages.size());
+            Assert.assertArrayEquals(encode(avroSchemaGenerator.getReflectData(), schema, records.get(7)), messages.get(7));
+            Assert.assertArrayEquals(batchBytes, eachOutputStream.toByteArray());
+
+            List<AvroComplexTypesRecord> decoded = avroEncoderDecoder.decodeAll(new ByteArrayInputStream(batchBytes), false).collect(Collectors.toList());
+            Assert.assertFalse(javers.compareCollections(records, decoded, AvroComplexTypesRecord.class).hasChanges());
+            // with datum reuse every record is decoded into the same object
+            List<AvroComplexTypesRecord> reused = avroEncoderDecoder.decodeAll(new ByteArrayInputStream(batchBytes), true).collect(Collectors.toList());
+            Assert.assertEquals(records.size(), reused.size());
+            Assert.assertSame(reused.get(0), reused.get(reused.size() - 1));
+            Assert.assertFalse(javers.compare(records.get(records.size() - 1), reused.get(0)).hasChanges());
+            Assert.assertEquals(0L, avroEncoderDecoder.decodeAll(new ByteArrayInputStream(new byte[0]), false).count());
+        }
+    }
+
+    @Test
+    public void testNestedEncodes() throws IOException {
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        Schema schema = avroSchemaGenerator.generateSchema(AvroComplexTypesRecord.class);
+        Schema keySchema = avroSchemaGenerator.generateSchema(AvroPrimitiveTypesRecord.class);
+        List<AvroComplexTypesRecord> records = new ArrayList();
+        for (int i = 0; i < 10; i++) {
+            records.add(new AvroComplexTypesRecord(random, localDateTime.minusHours(i), zonedDateTime.minusHours(i)));
+        }
+        AvroPrimitiveTypesRecord key = new AvroPrimitiveTypesRecord(random);
+        AvroEncoderDecoder<AvroComplexTypesRecord> avroEncoderDecoder = new AvroEncoderDecoder(schema, avroSchemaGenerator.getReflectData(), true);
+        AvroEncoderDecoder<AvroPrimitiveTypesRecord> keyEncoderDecoder = new AvroEncoderDecoder(keySchema, avroSchemaGenerator.getReflectData(), true);
+        byte[] keyBytes = encode(avroSchemaGenerator.getReflectData(), keySchema, key);
+        List<byte[]> messages = new ArrayList();
+        // the consumer encodes a key per message on the same thread, the bytes of the message are left as they are
+        avroEncoderDecoder.encodeEach(records, byteBuffer -> {
+            try {
+                Assert.assertArrayEquals(keyBytes, keyEncoderDecoder.encodeAvro(key));
+                keyEncoderDecoder.encodeMessage(key);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            byte[] message = new byte[byteBuffer.remaining()];
+            byteBuffer.get(message);
+            messages.add(message);
+        });
+        for (int i = 0; i < records.size(); i++) {
+            Assert.assertArrayEquals(encode(avroSchemaGenerator.getReflectData(), schema, records.get(i)), messages.get(i));
+        }
+        // the pooled buffer is returned, the next batch still encodes correctly
+        Assert.assertArrayEquals(encode(avroSchemaGenerator.getReflectData(), schema, records.get(0)), avroEncoderDecoder.encodeAvro(records.get(0)));
+    }
+
+    @Test
+    public void testByteBuffers() throws IOException {
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        Schema schema = avroSchemaGenerator.generateSchema(AvroComplexTypesRecord.class);
+        AvroComplexTypesRecord record = new AvroComplexTypesRecord(random, localDateTime, zonedDateTime);
+        for (boolean reuseCoders : new boolean[]{false, true}) {
+            AvroEncoderDecoder<AvroComplexTypesRecord> avroEncoderDecoder = new AvroEncoderDecoder(schema, avroSchemaGenerator.getReflectData(), reuseCoders);
+            byte[] bytes = avroEncoderDecoder.encodeAvro(record);
+            for (ByteBuffer byteBuffer : new ByteBuffer[]{ByteBuffer.allocate(bytes.length + 8), ByteBuffer.allocateDirect(bytes.length + 8)}) {
+                byteBuffer.position(3);
+                Assert.assertEquals(bytes.length, avroEncoderDecoder.encodeAvro(byteBuffer, record));
+                Assert.assertEquals(3 + bytes.length, byteBuffer.position());
+                byteBuffer.flip().position(3);
+                Assert.assertFalse(javers.compare(record, avroEncoderDecoder.decodeAvro(byteBuffer)).hasChanges());
+                Assert.assertEquals(3, byteBuffer.position());
+            }
+
+            // a slice of a larger array
+            byte[] padded = new byte[bytes.length + 10];
+            System.arraycopy(bytes, 0, padded, 5, bytes.length);
+            Assert.assertFalse(javers.compare(record, avroEncoderDecoder.decodeAvro(padded, 5, bytes.length)).hasChanges());
+
+            // a byte buffer that is too small is left as it was
+            ByteBuffer smallBuffer = ByteBuffer.allocate(bytes.length - 1);
+            Assert.assertThrows(BufferOverflowException.class, () -> avroEncoderDecoder.encodeAvro(smallBuffer, record));
+            Assert.assertEquals(0, smallBuffer.position());
+        }
+    }
+
+}
@@ -0,0 +1,10 @@
+package net.betzel.avro.schemagen.maven.plugin.test;
+
+import java.util.List;
+
+public class AvroInterfaceTypesRecord {
+
+    public AvroSchemaEvolutionInterface evolution;
+    public List<AvroSchemaEvolutionInterface> evolutions;
+
+}
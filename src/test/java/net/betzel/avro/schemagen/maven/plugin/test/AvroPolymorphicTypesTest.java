@@ -1,6 +1,8 @@
 package net.betzel.avro.schemagen.maven.plugin.test;
 
 import net.betzel.avro.schemagen.maven.plugin.AvroSchemaGenerator;
+import net.betzel.avro.schemagen.maven.plugin.ConcurrentAvroSchemaGenerator;
+import net.betzel.avro.schemagen.maven.plugin.SchemaGenerationException;
 import org.apache.avro.Schema;
 import org.apache.avro.UnresolvedUnionException;
 import org.javers.core.diff.Diff;
@@ -17,6 +19,11 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class AvroPolymorphicTypesTest extends AbstractAvroTest implements Serializable {
 
@@ -122,6 +129,75 @@ public class AvroPolymorphicTypesTest extends AbstractAvroTest implements Serial
         Assert.assertFalse(diff.hasChanges());
     }
 
+    @Test
+    public void testPolymorphicTypesCache() {
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        avroSchemaGenerator.declarePolymorphicType(null, IllegalArgumentException.class, NullPointerException.class, IOException.class, InterruptedException.class, ArrayIndexOutOfBoundsException.class);
+        Schema avroPolymorphicRecordSchema = avroSchemaGenerator.generateSchema(AvroPolymorphicTypesRecord.class);
+        LOGGER.info("Polymorphic types cache hits {} and misses {}", avroSchemaGenerator.getPolymorphicTypesCacheHits(), avroSchemaGenerator.getPolymorphicTypesCacheMisses());
+        Assert.assertTrue(avroSchemaGenerator.getPolymorphicTypesCacheHits() > 0);
+        Assert.assertTrue(avroSchemaGenerator.getPolymorphicTypesCacheMisses() > 0);
+        // every created record is completed exactly once
+        Assert.assertEquals(avroSchemaGenerator.getCreatedRecords(), avroSchemaGenerator.getCompletedRecords());
+        Assert.assertTrue(avroSchemaGenerator.getReusedRecords() > 0);
+        // the element union of exceptions and the value union of exceptionMap are resolved once
+        Assert.assertSame(avroPolymorphicRecordSchema.getField("exceptions").schema().getTypes().get(1).getElementType(),
+                avroPolymorphicRecordSchema.getField("exceptionMap").schema().getTypes().get(1).getValueType());
+    }
+
+    @Test
+    public void testConcurrentPolymorphicTypes() throws InterruptedException, ExecutionException {
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        avroSchemaGenerator.declarePolymorphicType(null, IllegalArgumentException.class, NullPointerException.class, IOException.class, InterruptedException.class, ArrayIndexOutOfBoundsException.class);
+        String expectedSchema = avroSchemaGenerator.generateSchema(AvroPolymorphicTypesRecord.class).toString();
+        AvroSchemaGenerator sharedSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        sharedSchemaGenerator.setConversions(conversions);
+        sharedSchemaGenerator.declarePolymorphicType(null, IllegalArgumentException.class, NullPointerException.class, IOException.class, InterruptedException.class, ArrayIndexOutOfBoundsException.class);
+        ConcurrentAvroSchemaGenerator concurrentAvroSchemaGenerator = new ConcurrentAvroSchemaGenerator(sharedSchemaGenerator);
+        Assert.assertThrows(SchemaGenerationException.class, () -> sharedSchemaGenerator.declarePolymorphicType(null, EOFException.class));
+        List<Callable<String>> tasks = new ArrayList();
+        for (int i = 0; i < 16; i++) {
+            tasks.add(() -> concurrentAvroSchemaGenerator.generateSchema(AvroPolymorphicTypesRecord.class).toString());
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            for (Future<String> future : executorService.invokeAll(tasks)) {
+                Assert.assertEquals(expectedSchema, future.get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        Assert.assertTrue(concurrentAvroSchemaGenerator.getSharedRecords() > 0);
+        Assert.assertTrue(concurrentAvroSchemaGenerator.getReusedRecords() > 0);
+    }
+
+    @Test
+    public void testPolymorphicInterfaceBaseType() throws IOException {
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        // the implementations extend Object, only the base type declaration registers them under the interface
+        avroSchemaGenerator.declarePolymorphicBaseType(AvroSchemaEvolutionInterface.class, AvroSchemaEvolutionOldRecord.class, AvroSchemaEvolutionNewRecord.class);
+        Schema avroInterfaceTypesRecordSchema = avroSchemaGenerator.generateSchema(AvroInterfaceTypesRecord.class);
+        LOGGER.info("Polymorphic interface types schema: {}", avroInterfaceTypesRecordSchema.toString(true));
+        String evolutionTypes = AvroSchemaGenerator.unionTypesToString(avroInterfaceTypesRecordSchema.getField("evolution").schema());
+        Assert.assertTrue(evolutionTypes, evolutionTypes.contains("AvroSchemaEvolutionOldRecord") && evolutionTypes.contains("AvroSchemaEvolutionNewRecord"));
+        AvroInterfaceTypesRecord avroInterfaceTypesRecord = new AvroInterfaceTypesRecord();
+        avroInterfaceTypesRecord.evolution = new AvroSchemaEvolutionNewRecord();
+        avroInterfaceTypesRecord.evolution.setDate(localDateTime);
+        List<AvroSchemaEvolutionInterface> evolutions = new ArrayList(2);
+        evolutions.add(new AvroSchemaEvolutionOldRecord());
+        evolutions.add(avroInterfaceTypesRecord.evolution);
+        evolutions.get(0).setDate(localDateTime);
+        avroInterfaceTypesRecord.evolutions = evolutions;
+        byte[] avroInterfaceTypesRecordBytes = encode(avroSchemaGenerator.getReflectData(), avroInterfaceTypesRecordSchema, avroInterfaceTypesRecord);
+        AvroInterfaceTypesRecord avroInterfaceTypesRecordRestored = decode(avroSchemaGenerator.getReflectData(), avroInterfaceTypesRecordSchema, avroInterfaceTypesRecordBytes);
+        Assert.assertTrue(avroInterfaceTypesRecordRestored.evolution instanceof AvroSchemaEvolutionNewRecord);
+        Assert.assertTrue(avroInterfaceTypesRecordRestored.evolutions.get(0) instanceof AvroSchemaEvolutionOldRecord);
+        Assert.assertEquals(avroInterfaceTypesRecord.evolution.getDate(), avroInterfaceTypesRecordRestored.evolution.getDate());
+    }
+
     @Test
     public void testPolymorphicTypesAllowNonNullFields2() {
         UnresolvedUnionException unresolvedUnionException = Assert.assertThrows(UnresolvedUnionException.class, () -> {
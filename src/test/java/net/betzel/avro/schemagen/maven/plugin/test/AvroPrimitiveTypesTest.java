@@ -1,5 +1,6 @@
 package net.betzel.avro.schemagen.maven.plugin.test;
 
+import net.betzel.avro.schemagen.maven.plugin.AvroEncoderDecoder;
 import net.betzel.avro.schemagen.maven.plugin.AvroSchemaGenerator;
 import org.apache.avro.Schema;
 import org.apache.avro.reflect.ReflectData;
@@ -9,6 +10,8 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
 
@@ -52,6 +55,25 @@ public class AvroPrimitiveTypesTest extends AbstractAvroTest implements Serializ
         Assert.assertNotNull(avroPrimitiveTypesRecordRestored.nullBytes);
     }
 
+    @Test
+    public void testPrimitivesCachedCoders() throws IOException {
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        Schema avroPrimitiveTypesRecordSchema = avroSchemaGenerator.generateSchema(AvroPrimitiveTypesRecord.class);
+        AvroEncoderDecoder<AvroPrimitiveTypesRecord> avroEncoderDecoder = AvroEncoderDecoder.getCached(avroPrimitiveTypesRecordSchema, reflectData);
+        Assert.assertSame(avroEncoderDecoder, AvroEncoderDecoder.getCached(avroPrimitiveTypesRecordSchema, reflectData));
+        for (int i = 0; i < 3; i++) {
+            AvroPrimitiveTypesRecord avroPrimitiveTypesRecord = new AvroPrimitiveTypesRecord(random);
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            avroEncoderDecoder.encodeAvro(byteArrayOutputStream, avroPrimitiveTypesRecord);
+            byte[] avroPrimitiveTypesRecordBytes = byteArrayOutputStream.toByteArray();
+            Assert.assertArrayEquals(encode(reflectData, avroPrimitiveTypesRecordSchema, avroPrimitiveTypesRecord), avroPrimitiveTypesRecordBytes);
+            AvroPrimitiveTypesRecord avroPrimitiveTypesRecordRestored = avroEncoderDecoder.decodeAvro(new ByteArrayInputStream(avroPrimitiveTypesRecordBytes));
+            Diff diff = javers.compare(avroPrimitiveTypesRecord, avroPrimitiveTypesRecordRestored);
+            Assert.assertFalse(diff.hasChanges());
+        }
+    }
+
     @Test
     public void testPrimitivesDisallowNullFieldsException1() {
         NullPointerException nullPointerException = Assert.assertThrows(NullPointerException.class, () -> {
@@ -1,11 +1,17 @@
 package net.betzel.avro.schemagen.maven.plugin.test;
 
 import net.betzel.avro.schemagen.maven.plugin.AvroConversions;
+import net.betzel.avro.schemagen.maven.plugin.AvroEncoderDecoder;
 import net.betzel.avro.schemagen.maven.plugin.AvroSchemaGenerator;
 import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
 import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.message.BadHeaderException;
+import org.apache.avro.message.BinaryMessageEncoder;
+import org.apache.avro.message.MissingSchemaException;
+import org.apache.avro.message.SchemaStore;
 import org.apache.avro.reflect.ReflectData;
 import org.junit.Assert;
 import org.junit.Before;
@@ -13,8 +19,10 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 
 public class AvroSchemaEvolutionTest extends AbstractAvroTest implements Serializable {
 
@@ -54,4 +62,31 @@ public class AvroSchemaEvolutionTest extends AbstractAvroTest implements Seriali
         Assert.assertNull(AvroSchemaEvolutionNewRecord.dateString);
     }
 
+    @Test
+    public void testSingleObjectEncoding() throws IOException {
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        Schema avroSchemaEvolutionOldRecordSchema = avroSchemaGenerator.generateSchema(AvroSchemaEvolutionOldRecord.class);
+        Schema avroSchemaEvolutionNewRecordSchema = avroSchemaGenerator.generateSchema(AvroSchemaEvolutionNewRecord.class);
+        AvroSchemaEvolutionInterface avroSchemaEvolutionOldRecord = new AvroSchemaEvolutionOldRecord();
+        avroSchemaEvolutionOldRecord.setDate(localDateTime);
+        AvroEncoderDecoder<AvroSchemaEvolutionInterface> oldEncoderDecoder = new AvroEncoderDecoder(avroSchemaEvolutionOldRecordSchema, reflectData, true);
+        byte[] message = oldEncoderDecoder.encodeMessage(avroSchemaEvolutionOldRecord);
+        // the header of the Avro single object encoding
+        Assert.assertArrayEquals(new BinaryMessageEncoder(reflectData, avroSchemaEvolutionOldRecordSchema).encode(avroSchemaEvolutionOldRecord).array(), message);
+        Assert.assertEquals(SchemaNormalization.parsingFingerprint64(avroSchemaEvolutionOldRecordSchema), oldEncoderDecoder.getFingerprint());
+        Assert.assertTrue(avroSchemaEvolutionOldRecord.getDate().equals(oldEncoderDecoder.decodeMessage(new ByteArrayInputStream(message)).getDate()));
+
+        SchemaStore.Cache schemaStore = new SchemaStore.Cache();
+        AvroEncoderDecoder<AvroSchemaEvolutionInterface> newEncoderDecoder = new AvroEncoderDecoder(avroSchemaEvolutionNewRecordSchema, reflectData, true, false, schemaStore);
+        Assert.assertThrows(MissingSchemaException.class, () -> newEncoderDecoder.decodeMessage(message, 0, message.length));
+        schemaStore.addSchema(avroSchemaEvolutionOldRecordSchema);
+        for (int i = 0; i < 2; i++) {
+            AvroSchemaEvolutionNewRecord avroSchemaEvolutionNewRecord = (AvroSchemaEvolutionNewRecord) newEncoderDecoder.decodeMessage(ByteBuffer.wrap(message));
+            Assert.assertTrue(avroSchemaEvolutionOldRecord.getDate().equals(avroSchemaEvolutionNewRecord.getDate()));
+            Assert.assertNull(avroSchemaEvolutionNewRecord.dateString);
+        }
+        Assert.assertThrows(BadHeaderException.class, () -> newEncoderDecoder.decodeMessage(message, 1, message.length - 1));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package net.betzel.avro.schemagen.maven.plugin.test;
+
+import net.betzel.avro.schemagen.maven.plugin.AvroSchemaIterator;
+import org.apache.avro.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+public class AvroSchemaIteratorTest {
+
+    @Test
+    public void testRecursiveSchema() {
+        Schema node = Schema.createRecord("Node", null, "net.betzel.test", false);
+        Schema nullableNode = Schema.createUnion(Schema.create(Schema.Type.NULL), node);
+        node.setFields(Arrays.asList(
+                new Schema.Field("name", Schema.create(Schema.Type.STRING)),
+                new Schema.Field("next", nullableNode),
+                new Schema.Field("children", Schema.createArray(node)),
+                new Schema.Field("labels", Schema.createMap(Schema.create(Schema.Type.STRING)))));
+        List<Schema> schemas = new ArrayList();
+        for (Schema schema : new AvroSchemaIterator(node)) {
+            schemas.add(schema);
+        }
+        // node, name string, union, array, map, null, label string
+        Assert.assertEquals(7, schemas.size());
+        Assert.assertSame(node, schemas.get(0));
+        Assert.assertSame(nullableNode, schemas.get(2));
+        Assert.assertEquals(1, AvroSchemaIterator.stream(node).filter(schema -> schema.getType() == Schema.Type.RECORD).count());
+        Assert.assertEquals(schemas, AvroSchemaIterator.stream(node).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testEqualSchemaInstances() {
+        // equal but distinct schema instances are all visited
+        Schema record = Schema.createRecord("Pair", null, "net.betzel.test", false);
+        record.setFields(Arrays.asList(
+                new Schema.Field("left", Schema.create(Schema.Type.STRING)),
+                new Schema.Field("right", Schema.create(Schema.Type.STRING))));
+        Assert.assertEquals(3, AvroSchemaIterator.stream(record).count());
+    }
+
+    @Test
+    public void testExhausted() {
+        AvroSchemaIterator avroSchemaIterator = new AvroSchemaIterator(Schema.create(Schema.Type.INT));
+        Assert.assertEquals(Schema.Type.INT, avroSchemaIterator.next().getType());
+        Assert.assertFalse(avroSchemaIterator.hasNext());
+        Assert.assertThrows(NoSuchElementException.class, avroSchemaIterator::next);
+    }
+
+}
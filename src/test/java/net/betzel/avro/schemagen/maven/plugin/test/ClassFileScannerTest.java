@@ -0,0 +1,55 @@
+package net.betzel.avro.schemagen.maven.plugin.test;
+
+import net.betzel.avro.schemagen.maven.plugin.ClassFileScanner;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+public class ClassFileScannerTest {
+
+    private static final File TEST_CLASSES = new File(AvroPrimitiveTypesRecord.class.getProtectionDomain().getCodeSource().getLocation().getPath());
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testDirectory() throws IOException {
+        ClassFileScanner classFileScanner = new ClassFileScanner(Collections.singleton(TEST_CLASSES));
+        Assert.assertTrue(classFileScanner.contains(AvroInheritParentTypesRecord.class.getName()));
+        Assert.assertEquals(new HashSet(Arrays.asList(AvroInheritChild1TypesRecord.class.getName(), AvroInheritChild2TypesRecord.class.getName())),
+                classFileScanner.getConcreteSubTypes(AvroInheritParentTypesRecord.class.getName()));
+        Assert.assertEquals(Collections.singleton(AvroInheritChild2TypesRecord.class.getName()), classFileScanner.getConcreteSubTypes(AvroInheritChild1TypesRecord.class.getName()));
+        Assert.assertEquals(new HashSet(Arrays.asList(AvroSchemaEvolutionNewRecord.class.getName(), AvroSchemaEvolutionOldRecord.class.getName())),
+                classFileScanner.getConcreteSubTypes(AvroSchemaEvolutionInterface.class.getName()));
+        Assert.assertTrue(classFileScanner.getConcreteSubTypes(AvroInheritChild2TypesRecord.class.getName()).isEmpty());
+    }
+
+    @Test
+    public void testJar() throws IOException {
+        File jar = temporaryFolder.newFile("classes.jar");
+        try (JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jar))) {
+            for (Class<?> clazz : Arrays.asList(AvroInheritParentTypesRecord.class, AvroInheritChild1TypesRecord.class, AvroInheritChild2TypesRecord.class)) {
+                String resourceName = clazz.getName().replace('.', '/') + ".class";
+                jarOutputStream.putNextEntry(new JarEntry(resourceName));
+                jarOutputStream.write(Files.readAllBytes(new File(TEST_CLASSES, resourceName).toPath()));
+                jarOutputStream.closeEntry();
+            }
+        }
+        ClassFileScanner classFileScanner = new ClassFileScanner(Collections.singleton(jar));
+        Assert.assertEquals(3, classFileScanner.getClassCount());
+        Assert.assertEquals(new HashSet(Arrays.asList(AvroInheritChild1TypesRecord.class.getName(), AvroInheritChild2TypesRecord.class.getName())),
+                classFileScanner.getConcreteSubTypes(AvroInheritParentTypesRecord.class.getName()));
+    }
+
+}
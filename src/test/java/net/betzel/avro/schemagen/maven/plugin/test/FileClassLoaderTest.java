@@ -0,0 +1,108 @@
+package net.betzel.avro.schemagen.maven.plugin.test;
+
+import net.betzel.avro.schemagen.maven.plugin.FileClassLoader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+public class FileClassLoaderTest {
+
+    private static final File TEST_CLASSES = new File(AvroPrimitiveTypesRecord.class.getProtectionDomain().getCodeSource().getLocation().getPath());
+    // skip the application class loader, so test classes are defined by the file class loader
+    private static final ClassLoader PARENT = ClassLoader.getSystemClassLoader().getParent();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testConcurrentLoadClass() throws Exception {
+        String[] classNames = {AvroPrimitiveTypesRecord.class.getName(), AvroComplexTypesRecord.class.getName(), AvroMixedTypesRecord.class.getName(), AvroPolymorphicTypesRecord.class.getName()};
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try (FileClassLoader fileClassLoader = new FileClassLoader(TEST_CLASSES, PARENT)) {
+            List<Future<Class<?>>> futures = new ArrayList();
+            for (int i = 0; i < 64; i++) {
+                String className = classNames[i % classNames.length];
+                futures.add(executorService.submit((Callable<Class<?>>) () -> fileClassLoader.loadClass(className)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                Class<?> clazz = futures.get(i).get();
+                Assert.assertSame(fileClassLoader, clazz.getClassLoader());
+                Assert.assertSame(fileClassLoader.loadClass(classNames[i % classNames.length]), clazz);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testIndexedResources() throws IOException, ClassNotFoundException {
+        String resourceName = AvroPrimitiveTypesRecord.class.getName().replace('.', '/') + ".class";
+        File jar = temporaryFolder.newFile("classes.jar");
+        try (JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jar))) {
+            jarOutputStream.putNextEntry(new JarEntry("indexed/directory/"));
+            jarOutputStream.closeEntry();
+            jarOutputStream.putNextEntry(new JarEntry(resourceName));
+            jarOutputStream.write(Files.readAllBytes(new File(TEST_CLASSES, resourceName).toPath()));
+            jarOutputStream.closeEntry();
+        }
+        try (FileClassLoader fileClassLoader = new FileClassLoader(Arrays.asList(TEST_CLASSES, jar), PARENT)) {
+            URL url = fileClassLoader.getResource(resourceName);
+            Assert.assertEquals("file", url.getProtocol());
+            List<URL> urls = Collections.list(fileClassLoader.getResources(resourceName));
+            Assert.assertEquals(2, urls.size());
+            Assert.assertEquals("jar", urls.get(1).getProtocol());
+            Assert.assertNull(fileClassLoader.getResource("does/not/Exist.class"));
+            Assert.assertFalse(fileClassLoader.getResources("does/not/Exist.class").hasMoreElements());
+        }
+        try (FileClassLoader fileClassLoader = new FileClassLoader(jar, PARENT)) {
+            Class<?> clazz = fileClassLoader.loadClass(AvroPrimitiveTypesRecord.class.getName());
+            Assert.assertSame(fileClassLoader, clazz.getClassLoader());
+            // directory entries are found with and without trailing slash
+            Assert.assertNotNull(fileClassLoader.getResource("indexed/directory/"));
+            Assert.assertNotNull(fileClassLoader.getResource("indexed/directory"));
+            Assert.assertTrue(fileClassLoader.getResources("indexed/directory/").hasMoreElements());
+        }
+    }
+
+    @Test
+    public void testParentFirstPackages() throws IOException, ClassNotFoundException {
+        ClassLoader parent = FileClassLoaderTest.class.getClassLoader();
+        List<String> parentFirstPackages = new ArrayList(FileClassLoader.DEFAULT_PARENT_FIRST_PACKAGES);
+        parentFirstPackages.add(AvroComplexTypesRecord.class.getName());
+        try (FileClassLoader fileClassLoader = new FileClassLoader(Collections.singleton(TEST_CLASSES), parent, parentFirstPackages)) {
+            Assert.assertSame(String.class, fileClassLoader.loadClass(String.class.getName()));
+            Assert.assertSame(AvroComplexTypesRecord.class, fileClassLoader.loadClass(AvroComplexTypesRecord.class.getName()));
+            Assert.assertSame(fileClassLoader, fileClassLoader.loadClass(AvroPrimitiveTypesRecord.class.getName()).getClassLoader());
+            // missing on the class path, found by the parent for each lookup
+            Assert.assertSame(Assert.class, fileClassLoader.loadClass(Assert.class.getName()));
+            Assert.assertSame(Assert.class, fileClassLoader.loadClass(Assert.class.getName()));
+            Assert.assertThrows(ClassNotFoundException.class, () -> fileClassLoader.loadClass("does.not.Exist"));
+        }
+    }
+
+    @Test
+    public void testClosed() throws IOException {
+        FileClassLoader fileClassLoader = new FileClassLoader(TEST_CLASSES, PARENT);
+        fileClassLoader.close();
+        Assert.assertTrue(fileClassLoader.isClosed());
+        Assert.assertThrows(IllegalStateException.class, () -> fileClassLoader.loadClass(AvroPrimitiveTypesRecord.class.getName()));
+    }
+
+}
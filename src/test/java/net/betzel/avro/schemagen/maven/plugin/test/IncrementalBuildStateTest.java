@@ -0,0 +1,48 @@
+package net.betzel.avro.schemagen.maven.plugin.test;
+
+import net.betzel.avro.schemagen.maven.plugin.AvroSchemaGenerator;
+import net.betzel.avro.schemagen.maven.plugin.IncrementalBuildState;
+import org.apache.avro.Schema;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+
+public class IncrementalBuildStateTest extends AbstractAvroTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testUpToDate() throws IOException {
+        ClassLoader classLoader = IncrementalBuildStateTest.class.getClassLoader();
+        Path stateFile = temporaryFolder.getRoot().toPath().resolve("state").resolve("incremental-state.properties");
+        Path outputFile = temporaryFolder.newFile("AvroComplexTypesRecord.avsc").toPath();
+        String rootClassName = AvroComplexTypesRecord.class.getName();
+        String configHash = IncrementalBuildState.hash("config");
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        Schema schema = avroSchemaGenerator.generateSchema(AvroComplexTypesRecord.class);
+        Set<String> classNames = IncrementalBuildState.getClassClosure(AvroComplexTypesRecord.class, Collections.singleton(schema), classLoader);
+        Assert.assertTrue(classNames.contains(AvroComplexTypesRecord.Day.class.getName()));
+        Assert.assertFalse(classNames.contains(String.class.getName()));
+
+        IncrementalBuildState incrementalBuildState = new IncrementalBuildState(stateFile, classLoader);
+        Assert.assertFalse(incrementalBuildState.isUpToDate(rootClassName, configHash, outputFile));
+        incrementalBuildState.update(rootClassName, configHash, classNames);
+        incrementalBuildState.save();
+
+        incrementalBuildState = new IncrementalBuildState(stateFile, classLoader);
+        Assert.assertTrue(incrementalBuildState.isUpToDate(rootClassName, configHash, outputFile));
+        Assert.assertFalse(incrementalBuildState.isUpToDate(rootClassName, IncrementalBuildState.hash("changed config"), outputFile));
+        Files.delete(outputFile);
+        Assert.assertFalse(incrementalBuildState.isUpToDate(rootClassName, configHash, outputFile));
+    }
+
+}
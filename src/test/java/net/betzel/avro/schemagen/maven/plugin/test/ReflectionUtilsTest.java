@@ -0,0 +1,51 @@
+package net.betzel.avro.schemagen.maven.plugin.test;
+
+import net.betzel.avro.schemagen.maven.plugin.ReflectionUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.Date;
+
+public class ReflectionUtilsTest extends AbstractAvroTest {
+
+    @Test
+    public void testFieldAccessors() throws IllegalAccessException {
+        AvroPrimitiveTypesRecord avroPrimitiveTypesRecord = new AvroPrimitiveTypesRecord(random);
+        ReflectionUtils.FieldAccessor intAccessor = ReflectionUtils.getFieldAccessor("f3", AvroPrimitiveTypesRecord.class);
+        Assert.assertSame(intAccessor, ReflectionUtils.getFieldAccessor("f3", AvroPrimitiveTypesRecord.class));
+        Assert.assertEquals(avroPrimitiveTypesRecord.f3, intAccessor.getInt(avroPrimitiveTypesRecord));
+        intAccessor.setInt(avroPrimitiveTypesRecord, 42);
+        Assert.assertEquals(42, avroPrimitiveTypesRecord.f3);
+        ReflectionUtils.FieldAccessor longAccessor = ReflectionUtils.getFieldAccessor("f4", AvroPrimitiveTypesRecord.class);
+        longAccessor.setLong(avroPrimitiveTypesRecord, 42L);
+        Assert.assertEquals(42L, longAccessor.getLong(avroPrimitiveTypesRecord));
+        Assert.assertEquals(42L, longAccessor.get(avroPrimitiveTypesRecord));
+        Assert.assertThrows(IllegalArgumentException.class, () -> longAccessor.getInt(avroPrimitiveTypesRecord));
+        Assert.assertThrows(IllegalArgumentException.class, () -> longAccessor.set(avroPrimitiveTypesRecord, null));
+        Assert.assertEquals(42L, avroPrimitiveTypesRecord.f4);
+        Assert.assertNull(ReflectionUtils.getFieldAccessor("missing", AvroPrimitiveTypesRecord.class));
+
+        // private fields of superclasses
+        AvroInheritChild2TypesRecord avroInheritChild2TypesRecord = new AvroInheritChild2TypesRecord(localDateTime);
+        Date date = new Date(0L);
+        ReflectionUtils.setVariableValueInObject(avroInheritChild2TypesRecord, "date", date);
+        Assert.assertSame(date, ReflectionUtils.getValueIncludingSuperclasses("date", avroInheritChild2TypesRecord));
+        Assert.assertThrows(IllegalArgumentException.class, () -> ReflectionUtils.setVariableValueInObject(avroInheritChild2TypesRecord, "date", "no date"));
+        Assert.assertEquals("setLength", ReflectionUtils.getSetter("length", StringBuilder.class).getName());
+        Assert.assertNull(ReflectionUtils.getSetter("missing", StringBuilder.class));
+    }
+
+    @Test
+    public void testFieldHierarchy() throws NoSuchFieldException {
+        ReflectionUtils.FieldHierarchy fieldHierarchy = ReflectionUtils.getFieldHierarchy(AvroInheritChild2TypesRecord.class);
+        Assert.assertSame(fieldHierarchy, ReflectionUtils.getFieldHierarchy(AvroInheritChild2TypesRecord.class));
+        Field dateField = AvroInheritParentTypesRecord.class.getDeclaredField("date");
+        Assert.assertEquals(dateField, fieldHierarchy.getField("date"));
+        Assert.assertEquals(dateField, fieldHierarchy.getQualifiedField(AvroInheritParentTypesRecord.class.getName() + ".date"));
+        Assert.assertNull(fieldHierarchy.getQualifiedField(AvroInheritChild2TypesRecord.class.getName() + ".date"));
+        Assert.assertEquals(AvroInheritChild2TypesRecord.class.getDeclaredField("localTime"), fieldHierarchy.getFields().get(0));
+        Assert.assertEquals(fieldHierarchy.getFields(), ReflectionUtils.getFieldsIncludingSuperclasses(AvroInheritChild2TypesRecord.class));
+    }
+
+}
@@ -0,0 +1,51 @@
+package net.betzel.avro.schemagen.maven.plugin.test;
+
+import net.betzel.avro.schemagen.maven.plugin.AvroSchemaGenerator;
+import net.betzel.avro.schemagen.maven.plugin.IncrementalBuildState;
+import net.betzel.avro.schemagen.maven.plugin.SchemaCache;
+import org.apache.avro.Schema;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+
+public class SchemaCacheTest extends AbstractAvroTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testCache() throws IOException {
+        ClassLoader classLoader = SchemaCacheTest.class.getClassLoader();
+        Path cacheDirectory = temporaryFolder.getRoot().toPath().resolve("cache");
+        String rootClassName = AvroComplexTypesRecord.class.getName();
+        String configHash = IncrementalBuildState.hash("config");
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        Schema schema = avroSchemaGenerator.generateSchema(AvroComplexTypesRecord.class);
+        byte[] schemaBytes = schema.toString(true).getBytes(StandardCharsets.UTF_8);
+        Set<String> classNames = IncrementalBuildState.getClassClosure(AvroComplexTypesRecord.class, Collections.singleton(schema), classLoader);
+
+        SchemaCache schemaCache = new SchemaCache(cacheDirectory, classLoader, "1.0.0");
+        Assert.assertNull(schemaCache.get(rootClassName, configHash));
+        schemaCache.put(rootClassName, configHash, classNames, schemaBytes);
+
+        // another build or module with the same classes and configuration
+        schemaCache = new SchemaCache(cacheDirectory, classLoader, "1.0.0");
+        SchemaCache.Entry entry = schemaCache.get(rootClassName, configHash);
+        Assert.assertNotNull(entry);
+        Assert.assertArrayEquals(schemaBytes, entry.getSchemaBytes());
+        Assert.assertEquals(classNames, entry.getClassNames());
+        Assert.assertNull(schemaCache.get(rootClassName, IncrementalBuildState.hash("changed config")));
+        Assert.assertNull(schemaCache.get(AvroPrimitiveTypesRecord.class.getName(), configHash));
+        // schemas of another plugin version
+        Assert.assertNull(new SchemaCache(cacheDirectory, classLoader, "1.0.1").get(rootClassName, configHash));
+    }
+
+}
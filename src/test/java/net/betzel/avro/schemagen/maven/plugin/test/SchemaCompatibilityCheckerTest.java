@@ -0,0 +1,80 @@
+package net.betzel.avro.schemagen.maven.plugin.test;
+
+import net.betzel.avro.schemagen.maven.plugin.AvroSchemaGenerator;
+import net.betzel.avro.schemagen.maven.plugin.SchemaCompatibilityChecker;
+import org.apache.avro.Schema;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+public class SchemaCompatibilityCheckerTest extends AbstractAvroTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testCompatibility() throws IOException {
+        Path cacheFile = temporaryFolder.getRoot().toPath().resolve("cache").resolve("compatibility-cache.properties");
+        AvroSchemaGenerator avroSchemaGenerator = new AvroSchemaGenerator(true, false, false);
+        avroSchemaGenerator.setConversions(conversions);
+        Schema oldSchema = avroSchemaGenerator.generateSchema(AvroSchemaEvolutionOldRecord.class);
+        // the new record under the name of the old one, a record of another name is never compatible
+        Schema newSchema = rename(avroSchemaGenerator.generateSchema(AvroSchemaEvolutionNewRecord.class), oldSchema, null);
+        // the new record with a field the old data cannot fill in
+        Schema requiredSchema = rename(newSchema, oldSchema, new Schema.Field("required", Schema.create(Schema.Type.INT)));
+
+        SchemaCompatibilityChecker schemaCompatibilityChecker = new SchemaCompatibilityChecker(cacheFile);
+        Assert.assertTrue(schemaCompatibilityChecker.check(newSchema, oldSchema, SchemaCompatibilityChecker.Compatibility.FULL).isEmpty());
+        Assert.assertTrue(schemaCompatibilityChecker.check(requiredSchema, oldSchema, SchemaCompatibilityChecker.Compatibility.FORWARD).isEmpty());
+        List<String> incompatibilities = schemaCompatibilityChecker.check(requiredSchema, oldSchema, SchemaCompatibilityChecker.Compatibility.FULL);
+        Assert.assertEquals(1, incompatibilities.size());
+        Assert.assertTrue(incompatibilities.get(0), incompatibilities.get(0).startsWith("BACKWARD: READER_FIELD_MISSING_DEFAULT_VALUE"));
+        Assert.assertEquals(4, schemaCompatibilityChecker.getResolvedPairs());
+        schemaCompatibilityChecker.save();
+
+        // the results are read back, no pair is resolved again
+        schemaCompatibilityChecker = new SchemaCompatibilityChecker(cacheFile);
+        Assert.assertTrue(schemaCompatibilityChecker.check(newSchema, oldSchema, SchemaCompatibilityChecker.Compatibility.FULL).isEmpty());
+        Assert.assertEquals(incompatibilities, schemaCompatibilityChecker.check(requiredSchema, oldSchema, SchemaCompatibilityChecker.Compatibility.FULL));
+        Assert.assertEquals(0, schemaCompatibilityChecker.getResolvedPairs());
+        Assert.assertTrue(new String(Files.readAllBytes(cacheFile), StandardCharsets.UTF_8).contains("=COMPATIBLE"));
+
+        // modules sharing the cache file keep each other's results, no temporary file is left behind
+        Files.delete(cacheFile);
+        SchemaCompatibilityChecker firstChecker = new SchemaCompatibilityChecker(cacheFile);
+        SchemaCompatibilityChecker secondChecker = new SchemaCompatibilityChecker(cacheFile);
+        firstChecker.check(newSchema, oldSchema, SchemaCompatibilityChecker.Compatibility.FULL);
+        secondChecker.check(requiredSchema, oldSchema, SchemaCompatibilityChecker.Compatibility.FULL);
+        firstChecker.save();
+        secondChecker.save();
+        schemaCompatibilityChecker = new SchemaCompatibilityChecker(cacheFile);
+        Assert.assertTrue(schemaCompatibilityChecker.check(newSchema, oldSchema, SchemaCompatibilityChecker.Compatibility.FULL).isEmpty());
+        Assert.assertEquals(incompatibilities, schemaCompatibilityChecker.check(requiredSchema, oldSchema, SchemaCompatibilityChecker.Compatibility.FULL));
+        Assert.assertEquals(0, schemaCompatibilityChecker.getResolvedPairs());
+        try (Stream<Path> files = Files.list(cacheFile.getParent())) {
+            Assert.assertEquals(1L, files.count());
+        }
+    }
+
+    private static Schema rename(Schema schema, Schema namedSchema, Schema.Field extraField) {
+        List<Schema.Field> fields = new ArrayList();
+        for (Schema.Field field : schema.getFields()) {
+            fields.add(new Schema.Field(field, field.schema()));
+        }
+        if (Objects.nonNull(extraField)) {
+            fields.add(extraField);
+        }
+        return Schema.createRecord(namedSchema.getName(), null, namedSchema.getNamespace(), false, fields);
+    }
+
+}